@@ -0,0 +1,81 @@
+package org.lip6.benchmarks;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.utils.InstanceGenerator;
+import org.lip6.scheduler.utils.InstanceGenerator.PriorityDistribution;
+
+/**
+ * Deterministic instances used by the benchmarks. Every instance built with the
+ * same parameters contains exactly the same plans, so that results of
+ * different runs can be compared.
+ */
+public class BenchmarkInstances {
+
+	/**
+	 * Seed used for every instance built by the benchmarks
+	 */
+	public static final long SEED = 42;
+
+	/**
+	 * Maximum capacity of each resource
+	 */
+	public static final int MAX_RESOURCE_CAPACITY = 2;
+
+	/**
+	 * Starting time of the temporal window
+	 */
+	public static final int W_START = 1;
+
+	/**
+	 * Get the generator of the benchmark instance having the given number of
+	 * plans. Each plan has 4 tasks on 4 resources, and its own priority value.
+	 * 
+	 * @param numPlans
+	 * @return
+	 */
+	public static InstanceGenerator generator(int numPlans) {
+		InstanceGenerator g = InstanceGenerator.get(SEED);
+		g.setNumberOfPlans(numPlans);
+		g.setTasksPerPlan(4);
+		g.setNumberOfResources(4);
+		g.setPlanPrecedenceDensity(0.01);
+		g.setPriorityDistribution(PriorityDistribution.DISTINCT);
+		return g;
+	}
+
+	/**
+	 * Get the final time of the temporal window used for an instance of the given
+	 * size.
+	 * 
+	 * @param numPlans
+	 * @return
+	 */
+	public static int wEnd(int numPlans) {
+		return generator(numPlans).getwEnd();
+	}
+
+	/**
+	 * Build the benchmark instance having the given number of plans.
+	 * 
+	 * @param numPlans the number of plans to build
+	 * @return
+	 */
+	public static Set<Plan> plans(int numPlans) {
+		return generator(numPlans).generate();
+	}
+
+	/**
+	 * Write the benchmark instance having the given number of plans to a CSV
+	 * file which can be read by {@link org.lip6.scheduler.utils.CSVParser}
+	 * 
+	 * @param numPlans
+	 * @param fname
+	 * @throws IOException
+	 */
+	public static void writeCSV(int numPlans, String fname) throws IOException {
+		generator(numPlans).writeCSV(fname);
+	}
+}
@@ -0,0 +1,25 @@
+package org.lip6.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. It runs all the benchmark suites (or
+ * those selected through the usual JMH command line options) with the GC and
+ * allocation profiler enabled.<br/>
+ * <br/>
+ * Example of usage: {@code java -jar target/benchmarks.jar SchedulerBenchmark -p numPlans=100}
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		Options opt = new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build();
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,56 @@
+package org.lip6.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.utils.CSVParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link CSVParser#parse(String)}. The CSV file is written once
+ * per trial in the temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVParserBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	int numPlans;
+
+	File csv;
+
+	@Setup
+	public void setup() throws IOException {
+		csv = File.createTempFile("plans_" + numPlans + "_", ".csv");
+		BenchmarkInstances.writeCSV(numPlans, csv.getAbsolutePath());
+	}
+
+	@TearDown
+	public void tearDown() {
+		csv.delete();
+	}
+
+	@Benchmark
+	public Map<Integer, Plan> parse() throws IOException, ParseException {
+		return CSVParser.parse(csv.getAbsolutePath());
+	}
+}
@@ -0,0 +1,324 @@
+package org.lip6.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+import org.lip6.scheduler.algorithm.Feasibility;
+import org.lip6.scheduler.algorithm.Scheduler;
+import org.lip6.scheduler.algorithm.SchedulerFactory;
+import org.lip6.scheduler.utils.InstanceGenerator;
+import org.lip6.scheduler.utils.InstanceGenerator.PriorityDistribution;
+
+/**
+ * Regression checks of the properties that the options of the
+ * {@link Scheduler} promise, run on a family of generated instances that mix
+ * priority distributions, synchronized tasks, precedences between plans and
+ * tight temporal windows. Each check prints the instances where the property
+ * does not hold, and the run fails (exit code 1) if any check fails.<br/>
+ * <br/>
+ * The checks are:
+ * <ul>
+ * <li>{@code pre-screen}: the schedule built with
+ * {@link Scheduler#setPreScreen(boolean)} is the same as without it, as are
+ * the scheduled plans</li>
+ * <li>{@code insert}: the schedule built by
+ * {@link Scheduler#insertPlans(Set)}, with the default rebuild policy, is the
+ * same as the schedule rebuilt on all the plans. The plans inserted are
+ * either the ones having the lowest priorities, which are usually inserted
+ * without rebuilding, or a sample of all the plans.</li>
+ * <li>{@code feasibility}: {@link Scheduler#checkFeasibility(Plan)} gives
+ * the starting times that {@link Scheduler#insertPlans(Set)} gives to a plan
+ * having synchronized tasks, or finds it not feasible if it is not
+ * scheduled.</li>
+ * <li>{@code improve}: {@link Scheduler#improve(long, TimeUnit)} never
+ * returns a solution worse than the one built, and schedules more plans on at
+ * least one instance. The instances use their whole temporal window and
+ * resources of capacity 1, so that the plans not scheduled are mostly
+ * discarded by the other plans rather than by their own constraints.</li>
+ * </ul>
+ * <br/>
+ * Example of usage:<br/>
+ * {@code java -cp target/benchmarks.jar org.lip6.benchmarks.RegressionCheck --instances 72}
+ * <br/>
+ * <br/>
+ * Options:
+ * <ul>
+ * <li>{@code --instances}: the number of instances (default 72)</li>
+ * <li>{@code --capacity}: the maximum capacity of each resource (default
+ * 3)</li>
+ * </ul>
+ */
+public class RegressionCheck {
+
+	public static void main(String[] args) {
+		Map<String, String> opts = parseOptions(args);
+		int instances = Integer.parseInt(opts.getOrDefault("instances", "72"));
+		int capacity = Integer.parseInt(opts.getOrDefault("capacity", "3"));
+
+		int failures = checkPreScreen(instances, capacity);
+		failures += checkInsert(instances, capacity);
+		failures += checkFeasibility(instances, capacity);
+		failures += checkImprove(Math.min(instances, 12));
+
+		if (failures > 0) {
+			System.out.println("FAILED: " + failures + " failure(s).");
+			System.exit(1);
+		}
+		System.out.println("All the checks passed.");
+	}
+
+	/**
+	 * Get the generator of the i-th instance of the checks
+	 *
+	 * @param i
+	 * @return
+	 */
+	static InstanceGenerator generator(int i) {
+		InstanceGenerator g = InstanceGenerator.get(i + 1);
+		g.setNumberOfPlans(40 + (i % 4) * 20);
+		g.setNumberOfResources(2 + i % 3);
+		g.setTasksPerPlan(2 + i % 3);
+		g.setMaxPriority(3 + i % 8);
+		g.setSyncTaskRatio((i / 3) % 2 == 0 ? 0.3 : 0.1);
+		g.setPrecedenceDensity(0.3);
+		g.setPriorityDistribution(PriorityDistribution.values()[(i / 2) % PriorityDistribution.values().length]);
+		g.setPlanPrecedenceDensity(i % 6 == 0 ? 0.05 : 0.0);
+		g.setTightness(0.3 + 0.1 * (i % 7));
+		return g;
+	}
+
+	/**
+	 * Get the final time of the temporal window of the i-th instance: a fraction
+	 * of the window of the generator, so that some plans cannot be scheduled
+	 */
+	static int wEnd(InstanceGenerator g, int i) {
+		return Math.max(g.getwStart() + 2, g.getwEnd() / (1 + i % 3));
+	}
+
+	/**
+	 * Check that the pre-screen does not change the schedule, with and without
+	 * the decomposition into components
+	 *
+	 * @return the number of instances where the check fails
+	 */
+	static int checkPreScreen(int instances, int capacity) {
+		int failures = 0;
+		int screened = 0;
+		for (int i = 0; i < instances; i++) {
+			InstanceGenerator g = generator(i);
+			Set<Plan> plans = g.generate();
+			int wEnd = wEnd(g, i);
+			for (boolean decompose : new boolean[] { false, true }) {
+				Scheduler off = SchedulerFactory.get(capacity, plans, g.getwStart(), wEnd);
+				off.setDecomposeComponents(decompose);
+				Schedule expected = off.buildSchedule();
+
+				Scheduler on = SchedulerFactory.get(capacity, plans, g.getwStart(), wEnd);
+				on.setDecomposeComponents(decompose);
+				on.setPreScreen(true);
+				Schedule actual = on.buildSchedule();
+				screened += on.getScreenedPlans().size();
+
+				if (!signature(expected).equals(signature(actual))
+						|| !ids(off.getScheduledPlans()).equals(ids(on.getScheduledPlans()))) {
+					System.out.println("pre-screen: instance " + i + (decompose ? " (components)" : "")
+							+ " differs, scheduled without " + ids(off.getScheduledPlans()) + ", with "
+							+ ids(on.getScheduledPlans()));
+					failures++;
+				}
+			}
+		}
+		System.out.println("pre-screen: " + (failures == 0 ? "passed" : failures + " failure(s)") + " ("
+				+ screened + " plans screened)");
+		return failures;
+	}
+
+	/**
+	 * Check that inserting plans into a built schedule gives the same schedule as
+	 * rebuilding it on all the plans
+	 *
+	 * @return the number of instances where the check fails
+	 */
+	static int checkInsert(int instances, int capacity) {
+		int failures = 0;
+		int incremental = 0;
+		for (int i = 0; i < instances; i++) {
+			InstanceGenerator g = generator(i);
+			Set<Plan> plans = g.generate();
+			int wEnd = wEnd(g, i);
+			// The last quarter of the plans by priority, then every fourth plan
+			List<Plan> byPriority = new ArrayList<>(plans);
+			byPriority.sort(Comparator.comparingInt(Plan::getPriority).reversed().thenComparingInt(Plan::getID));
+			List<Set<Plan>> inserted = new ArrayList<>();
+			inserted.add(new HashSet<>(byPriority.subList(byPriority.size() * 3 / 4, byPriority.size())));
+			inserted.add(plans.stream().filter(x -> x.getID() % 4 == 0).collect(Collectors.toSet()));
+
+			for (Set<Plan> later : inserted) {
+				Set<Plan> first = new HashSet<>(plans);
+				first.removeAll(later);
+				Scheduler s = SchedulerFactory.get(capacity, first, g.getwStart(), wEnd);
+				s.buildSchedule();
+				if (!s.requiresRebuild(later)) {
+					incremental++;
+				}
+				String actual = signature(s.insertPlans(later));
+				// The order of the plans having the same priority depends on the
+				// order of the set of plans, so the reference is a rebuild of the
+				// same scheduler
+				String expected = signature(s.buildSchedule());
+				if (!expected.equals(actual)) {
+					System.out.println("insert: instance " + i + " differs after inserting " + ids(later));
+					failures++;
+				}
+			}
+		}
+		System.out.println("insert: " + (failures == 0 ? "passed" : failures + " failure(s)") + " (" + incremental
+				+ " insertions without rebuild)");
+		return failures;
+	}
+
+	/**
+	 * Check that {@link Scheduler#checkFeasibility(Plan)} predicts what
+	 * inserting a plan does: the plan is scheduled if and only if it is
+	 * feasible, at the starting times given. The plans checked are the plans
+	 * having synchronized tasks among the ones of the lowest priority, which are
+	 * inserted without rebuilding.
+	 *
+	 * @return the number of plans where the check fails
+	 */
+	static int checkFeasibility(int instances, int capacity) {
+		int failures = 0;
+		int checked = 0;
+		for (int i = 0; i < instances; i++) {
+			InstanceGenerator g = generator(i);
+			Set<Plan> plans = g.generate();
+			int wEnd = wEnd(g, i);
+			int lowest = plans.stream().mapToInt(Plan::getPriority).min().getAsInt();
+			List<Plan> later = plans.stream().filter(x -> x.getPriority() == lowest && x.hasSyncTask())
+					.sorted(Comparator.comparingInt(Plan::getID)).limit(4).collect(Collectors.toList());
+			Set<Plan> first = plans.stream().filter(x -> x.getPriority() > lowest).collect(Collectors.toSet());
+			if (first.isEmpty()) {
+				continue;
+			}
+			for (Plan p : later) {
+				Scheduler s = SchedulerFactory.get(capacity, first, g.getwStart(), wEnd);
+				s.buildSchedule();
+				if (s.requiresRebuild(Collections.singleton(p))) {
+					continue;
+				}
+				Feasibility f = s.checkFeasibility(p);
+				Schedule actual = s.insertPlans(Collections.singleton(p));
+				Map<Integer, Integer> startingTimes = new HashMap<>();
+				actual.tasksOf(p.getID()).forEach(x -> startingTimes.put(x.getTask().getID(), x.getStartingTime()));
+				checked++;
+				if (f.isFeasible() != s.getScheduledPlans().contains(p)
+						|| f.isFeasible() && !f.getStartingTimes().equals(startingTimes)) {
+					System.out.println("feasibility: instance " + i + ", plan " + p.getID() + ": " + f
+							+ ", inserted at " + startingTimes);
+					failures++;
+				}
+			}
+		}
+		System.out.println("feasibility: " + (failures == 0 ? "passed" : failures + " failure(s)") + " (" + checked
+				+ " plans checked)");
+		return failures;
+	}
+
+	/**
+	 * Check that the improvement never makes the solution worse, and that it
+	 * improves at least one instance
+	 *
+	 * @return the number of instances where the check fails, plus one if no
+	 *         instance is improved
+	 */
+	static int checkImprove(int instances) {
+		int failures = 0;
+		int improved = 0;
+		for (int i = 0; i < instances; i++) {
+			InstanceGenerator g = generator(i);
+			Set<Plan> plans = g.generate();
+			Scheduler s = SchedulerFactory.get(1, plans, g.getwStart(), g.getwEnd());
+			s.setPreScreen(true);
+			s.buildSchedule();
+			List<Plan> before = new ArrayList<>(s.getScheduledPlans());
+			s.improve(1, TimeUnit.SECONDS);
+			int cmp = compareByPriority(s.getScheduledPlans(), before);
+			if (cmp < 0) {
+				System.out.println("improve: instance " + i + " is worse, scheduled before " + ids(before)
+						+ ", after " + ids(s.getScheduledPlans()));
+				failures++;
+			} else if (cmp > 0) {
+				improved++;
+			}
+		}
+		if (improved == 0) {
+			System.out.println("improve: no instance improved");
+			failures++;
+		}
+		System.out.println("improve: " + (failures == 0 ? "passed" : failures + " failure(s)") + " (" + improved
+				+ " instances improved)");
+		return failures;
+	}
+
+	/**
+	 * Compare two sets of scheduled plans as the improvement does: the set that
+	 * has more plans of the highest priority where they differ is greater; for
+	 * the same plans of each priority, the larger set is greater.
+	 */
+	static int compareByPriority(Collection<Plan> a, Collection<Plan> b) {
+		int[] pa = a.stream().mapToInt(Plan::getPriority).sorted().toArray();
+		int[] pb = b.stream().mapToInt(Plan::getPriority).sorted().toArray();
+		for (int i = pa.length - 1, j = pb.length - 1; i >= 0 && j >= 0; i--, j--) {
+			if (pa[i] != pb[j]) {
+				return Integer.compare(pa[i], pb[j]);
+			}
+		}
+		return Integer.compare(pa.length, pb.length);
+	}
+
+	/**
+	 * @return the task schedules of the given schedule, as "plan:task@start"
+	 *         sorted
+	 */
+	static String signature(Schedule s) {
+		return s.taskScheduleView().stream()
+				.map(x -> x.getTask().getPlanID() + ":" + x.getTask().getID() + "@" + x.getStartingTime()).sorted()
+				.collect(Collectors.joining(","));
+	}
+
+	static Set<Integer> ids(Collection<Plan> plans) {
+		return plans.stream().map(Plan::getID).collect(Collectors.toCollection(TreeSet::new));
+	}
+
+	/**
+	 * Parse the options given as {@code --name value}, or {@code --name} for the
+	 * flags.
+	 */
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> opts = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+			}
+			String name = args[i].substring(2);
+			if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+				opts.put(name, args[++i]);
+			} else {
+				opts.put(name, "");
+			}
+		}
+		return opts;
+	}
+}
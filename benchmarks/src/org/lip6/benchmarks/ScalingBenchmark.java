@@ -0,0 +1,311 @@
+package org.lip6.benchmarks;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.algorithm.Scheduler;
+import org.lip6.scheduler.algorithm.SchedulerFactory;
+import org.lip6.scheduler.algorithm.SchedulerInstrumentation;
+import org.lip6.scheduler.algorithm.SchedulerInstrumentation.Level;
+
+/**
+ * End-to-end scaling benchmark. It runs
+ * {@link SchedulerFactory#get(int, Set, int, int)} and
+ * {@link Scheduler#buildSchedule()} over a ladder of instance sizes, and for
+ * each step records the wall time, the allocation rate, the peak heap, the
+ * number of events of the timeline and the number of events created (counted
+ * through {@link SchedulerInstrumentation} at the {@link Level#COUNTERS}
+ * level).<br/>
+ * <br/>
+ * An empirical complexity exponent <i>k</i> is fitted on the steps, such that
+ * the wall time grows as <i>n<sup>k</sup></i> with the number of plans
+ * <i>n</i>. The results are saved as CSV and compared with a stored baseline:
+ * the benchmark fails (exit code 1) when the exponent or the latency of a step
+ * regress beyond the given thresholds.<br/>
+ * <br/>
+ * Example of usage:<br/>
+ * {@code java -cp target/benchmarks.jar org.lip6.benchmarks.ScalingBenchmark --ladder 10,100,1000 --baseline baseline/scaling.csv}
+ * <br/>
+ * <br/>
+ * Options:
+ * <ul>
+ * <li>{@code --ladder}: the numbers of plans, separated by ',' (default
+ * 10,100,1000,10000,100000)</li>
+ * <li>{@code --out}: the CSV file where the results are saved (default
+ * scaling.csv)</li>
+ * <li>{@code --baseline}: the CSV file of the baseline. If missing, no
+ * comparison is done</li>
+ * <li>{@code --update-baseline}: write the results to the baseline file instead
+ * of comparing them</li>
+ * <li>{@code --exponent-threshold}: maximum allowed increase of the exponent
+ * (default 0.25)</li>
+ * <li>{@code --latency-threshold}: maximum allowed relative increase of the
+ * wall time of a step (default 0.5, that is +50%)</li>
+ * <li>{@code --budget}: time budget in seconds of a step. The steps that follow
+ * a step exceeding the budget are skipped (default 600)</li>
+ * </ul>
+ */
+public class ScalingBenchmark {
+
+	/**
+	 * Steps faster than this are not used for the fit and the latency
+	 * comparison, since their measure is dominated by noise.
+	 */
+	private static final double MIN_SIGNIFICANT_MS = 5;
+
+	private enum csvHeaders {
+		plans, tasks, wallTimeMs, allocatedMB, allocationRateMBs, peakHeapMB, events, scheduledPlans, eventsCreated
+	}
+
+	/**
+	 * The measures of one step of the ladder
+	 */
+	static class Step {
+		int plans;
+		int tasks;
+		double wallTimeMs;
+		double allocatedMB;
+		double allocationRateMBs;
+		double peakHeapMB;
+		long events;
+		int scheduledPlans;
+		long eventsCreated;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> opts = parseOptions(args);
+		List<Integer> ladder = Arrays.stream(opts.getOrDefault("ladder", "10,100,1000,10000,100000").split(","))
+				.map(x -> Integer.parseInt(x.trim())).collect(Collectors.toList());
+		String out = opts.getOrDefault("out", "scaling.csv");
+		Optional<String> baseline = Optional.ofNullable(opts.get("baseline"));
+		double exponentThreshold = Double.parseDouble(opts.getOrDefault("exponent-threshold", "0.25"));
+		double latencyThreshold = Double.parseDouble(opts.getOrDefault("latency-threshold", "0.5"));
+		double budgetMs = Double.parseDouble(opts.getOrDefault("budget", "600")) * 1000;
+
+		SchedulerInstrumentation.setLevel(Level.COUNTERS);
+
+		// Warm up the JIT on the smallest instance
+		for (int i = 0; i < 20; i++) {
+			run(ladder.get(0));
+		}
+
+		List<Step> steps = new ArrayList<>();
+		for (int n : ladder) {
+			Step step = run(n);
+			steps.add(step);
+			System.out.println(String.format(
+					"plans=%d tasks=%d time=%.1fms alloc=%.1fMB/s peakHeap=%.1fMB events=%d eventsCreated=%d",
+					step.plans, step.tasks, step.wallTimeMs, step.allocationRateMBs, step.peakHeapMB, step.events,
+					step.eventsCreated));
+			if (step.wallTimeMs > budgetMs) {
+				System.out.println("Time budget exceeded, the remaining steps are skipped.");
+				break;
+			}
+		}
+
+		double exponent = fitExponent(steps);
+		System.out.println(String.format("Empirical complexity exponent: %.3f", exponent));
+		write(steps, out);
+
+		if (baseline.isPresent()) {
+			if (opts.containsKey("update-baseline")) {
+				write(steps, baseline.get());
+				System.out.println("Baseline updated: " + baseline.get());
+			} else if (Files.exists(Paths.get(baseline.get()))) {
+				if (!compare(steps, read(baseline.get()), exponentThreshold, latencyThreshold)) {
+					System.exit(1);
+				}
+			} else {
+				System.out.println("No baseline found at " + baseline.get());
+			}
+		}
+	}
+
+	/**
+	 * Schedule the benchmark instance having the given number of plans, and
+	 * measure the scheduling.
+	 *
+	 * @param numPlans
+	 * @return
+	 */
+	static Step run(int numPlans) {
+		Set<Plan> plans = BenchmarkInstances.plans(numPlans);
+		int wEnd = BenchmarkInstances.wEnd(numPlans);
+		List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(x -> x.getType() == MemoryType.HEAP).collect(Collectors.toList());
+
+		System.gc();
+		heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+		SchedulerInstrumentation.reset();
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+
+		Scheduler scheduler = SchedulerFactory.get(BenchmarkInstances.MAX_RESOURCE_CAPACITY, plans,
+				BenchmarkInstances.W_START, wEnd);
+		scheduler.buildSchedule();
+
+		long elapsed = System.nanoTime() - start;
+		long allocated = allocatedBytes() - allocatedBefore;
+
+		Step step = new Step();
+		step.plans = numPlans;
+		step.tasks = plans.stream().mapToInt(Plan::getNumberOfTasks).sum();
+		step.wallTimeMs = elapsed / 1e6;
+		step.allocatedMB = allocated / 1048576.0;
+		step.allocationRateMBs = step.allocatedMB / (elapsed / 1e9);
+		step.peakHeapMB = heapPools.stream().mapToLong(x -> x.getPeakUsage().getUsed()).sum() / 1048576.0;
+		step.events = scheduler.getEvents().size();
+		step.scheduledPlans = scheduler.getScheduledPlans().size();
+		step.eventsCreated = SchedulerInstrumentation.getCounters().getEventsCreated();
+		return step;
+	}
+
+	/**
+	 * Get the number of bytes allocated so far by the current thread, or 0 if the
+	 * JVM does not support this measure.
+	 *
+	 * @return
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	/**
+	 * Fit the exponent <i>k</i> of <i>time = c &middot; n<sup>k</sup></i> by
+	 * least squares over log(time) and log(n).
+	 *
+	 * @param steps
+	 * @return the exponent, or NaN if there are less than two significant steps
+	 */
+	static double fitExponent(List<Step> steps) {
+		List<Step> significant = steps.stream().filter(x -> x.wallTimeMs >= MIN_SIGNIFICANT_MS)
+				.collect(Collectors.toList());
+		if (significant.size() < 2) {
+			return Double.NaN;
+		}
+
+		double meanX = significant.stream().mapToDouble(x -> Math.log(x.plans)).average().getAsDouble();
+		double meanY = significant.stream().mapToDouble(x -> Math.log(x.wallTimeMs)).average().getAsDouble();
+		double num = 0;
+		double den = 0;
+		for (Step s : significant) {
+			double dx = Math.log(s.plans) - meanX;
+			num += dx * (Math.log(s.wallTimeMs) - meanY);
+			den += dx * dx;
+		}
+		return den == 0 ? Double.NaN : num / den;
+	}
+
+	/**
+	 * Compare the given steps with the baseline, and print the regressions found.
+	 *
+	 * @return <b>true</b> if no regression has been found, <b>false</b> otherwise
+	 */
+	static boolean compare(List<Step> steps, List<Step> baseline, double exponentThreshold,
+			double latencyThreshold) {
+		boolean passed = true;
+
+		double exponent = fitExponent(steps);
+		double baseExponent = fitExponent(baseline);
+		if (!Double.isNaN(exponent) && !Double.isNaN(baseExponent) && exponent > baseExponent + exponentThreshold) {
+			System.out.println(String.format("REGRESSION: exponent %.3f exceeds baseline %.3f by more than %.3f",
+					exponent, baseExponent, exponentThreshold));
+			passed = false;
+		}
+
+		Map<Integer, Step> byPlans = new HashMap<>();
+		baseline.forEach(x -> byPlans.put(x.plans, x));
+		for (Step s : steps) {
+			Step base = byPlans.get(s.plans);
+			if (base == null || base.wallTimeMs < MIN_SIGNIFICANT_MS) {
+				continue;
+			}
+			if (s.wallTimeMs > base.wallTimeMs * (1 + latencyThreshold)) {
+				System.out.println(String.format("REGRESSION: %d plans took %.1fms, baseline %.1fms (+%.0f%% allowed)",
+						s.plans, s.wallTimeMs, base.wallTimeMs, latencyThreshold * 100));
+				passed = false;
+			}
+		}
+
+		if (passed) {
+			System.out.println("No regression with respect to the baseline.");
+		}
+		return passed;
+	}
+
+	static void write(List<Step> steps, String fname) throws IOException {
+		try (CSVPrinter printer = CSVFormat.EXCEL.withHeader(csvHeaders.class).print(new FileWriter(fname))) {
+			for (Step s : steps) {
+				printer.printRecord(s.plans, s.tasks, s.wallTimeMs, s.allocatedMB, s.allocationRateMBs, s.peakHeapMB,
+						s.events, s.scheduledPlans, s.eventsCreated);
+			}
+		}
+	}
+
+	static List<Step> read(String fname) throws IOException {
+		List<Step> steps = new ArrayList<>();
+		try (Reader in = new FileReader(fname)) {
+			for (CSVRecord r : CSVFormat.EXCEL.withFirstRecordAsHeader().withHeader(csvHeaders.class).parse(in)) {
+				Step s = new Step();
+				s.plans = Integer.parseInt(r.get(csvHeaders.plans));
+				s.tasks = Integer.parseInt(r.get(csvHeaders.tasks));
+				s.wallTimeMs = Double.parseDouble(r.get(csvHeaders.wallTimeMs));
+				s.allocatedMB = Double.parseDouble(r.get(csvHeaders.allocatedMB));
+				s.allocationRateMBs = Double.parseDouble(r.get(csvHeaders.allocationRateMBs));
+				s.peakHeapMB = Double.parseDouble(r.get(csvHeaders.peakHeapMB));
+				s.events = Long.parseLong(r.get(csvHeaders.events));
+				s.scheduledPlans = Integer.parseInt(r.get(csvHeaders.scheduledPlans));
+				// Baselines written before this column was added do not have it
+				if (r.isSet(csvHeaders.eventsCreated.name())) {
+					s.eventsCreated = Long.parseLong(r.get(csvHeaders.eventsCreated));
+				}
+				steps.add(s);
+			}
+		}
+		return steps;
+	}
+
+	/**
+	 * Parse the options given as {@code --name value}, or {@code --name} for the
+	 * flags.
+	 */
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> opts = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+			}
+			String name = args[i].substring(2);
+			if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+				opts.put(name, args[++i]);
+			} else {
+				opts.put(name, "");
+			}
+		}
+		return opts;
+	}
+}
@@ -0,0 +1,49 @@
+package org.lip6.benchmarks;
+
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.lip6.graph.TopologicalSorting;
+import org.lip6.scheduler.ExecutableNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link TopologicalSorting#topologicalSort(List)} over the
+ * precedence graph of the plans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopologicalSortingBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	int numPlans;
+
+	List<ExecutableNode> nodes;
+
+	@Setup
+	public void setup() {
+		nodes = BenchmarkInstances.plans(numPlans).stream().map(x -> (ExecutableNode) x).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public Stack<ImmutablePair<Integer, Integer>> topologicalSort() {
+		return TopologicalSorting.topologicalSort(nodes);
+	}
+}
@@ -0,0 +1,57 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.lip6.benchmarks.BenchmarkInstances;
+import org.lip6.scheduler.Schedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the copies of the working state done by the scheduler: the
+ * timeline of events ({@link EventUtils#cloneSet(TreeSet)}) and the solution
+ * ({@link Schedule#clone()}). Both are copied once per trial in ALGORITHM 3,
+ * and the solution once per scheduled plan in ALGORITHM 1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CloneBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	int numPlans;
+
+	TreeSet<Event> events;
+	Schedule solution;
+
+	@Setup
+	public void setup() {
+		Scheduler scheduler = SchedulerFactory.get(BenchmarkInstances.MAX_RESOURCE_CAPACITY,
+				BenchmarkInstances.plans(numPlans), BenchmarkInstances.W_START, BenchmarkInstances.wEnd(numPlans));
+		solution = scheduler.buildSchedule();
+		events = scheduler.lastRun.events;
+	}
+
+	@Benchmark
+	public TreeSet<Event> cloneSet() {
+		return EventUtils.cloneSet(events);
+	}
+
+	@Benchmark
+	public Object cloneSchedule() throws CloneNotSupportedException {
+		return solution.clone();
+	}
+}
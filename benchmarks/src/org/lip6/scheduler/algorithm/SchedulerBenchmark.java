@@ -0,0 +1,236 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.lip6.benchmarks.BenchmarkInstances;
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+import org.lip6.scheduler.Task;
+import org.lip6.scheduler.TaskFactory;
+import org.lip6.scheduler.utils.InstanceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the hot paths of the {@link Scheduler}: the whole
+ * {@link Scheduler#buildSchedule()} (ALGORITHM 1), the scheduling of a set of
+ * plans having the same priority (ALGORITHM 3) and the placement of a single
+ * task (ALGORITHM 4).<br/>
+ * <br/>
+ * This class belongs to the same package of the scheduler so that it can reach
+ * the package-private placement routine and the timeline of events.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchedulerBenchmark {
+
+	/**
+	 * An instance of the given number of plans, with distinct priorities.
+	 */
+	@State(Scope.Benchmark)
+	public static class Instance {
+		@Param({ "10", "100", "1000" })
+		int numPlans;
+
+		Set<Plan> plans;
+		int wEnd;
+
+		/**
+		 * The scheduler used by the current invocation. A new one is created for
+		 * each invocation since {@link Scheduler#buildSchedule()} updates its
+		 * timeline.
+		 */
+		Scheduler scheduler;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			plans = BenchmarkInstances.plans(numPlans);
+			wEnd = BenchmarkInstances.wEnd(numPlans);
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			scheduler = SchedulerFactory.get(BenchmarkInstances.MAX_RESOURCE_CAPACITY, plans,
+					BenchmarkInstances.W_START, wEnd);
+		}
+	}
+
+	/**
+	 * The timeline built by scheduling an instance of the given number of plans,
+	 * against which a new task is placed.
+	 */
+	@State(Scope.Benchmark)
+	public static class Timeline {
+		@Param({ "10", "100", "1000" })
+		int numPlans;
+
+		Scheduler scheduler;
+		Schedule solution;
+		TreeSet<Event> builtEvents;
+		Task probe;
+
+		/**
+		 * Copies of the solution and the timeline, modified by the current
+		 * invocation.
+		 */
+		Schedule s;
+		TreeSet<Event> events;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			int wEnd = BenchmarkInstances.wEnd(numPlans);
+			scheduler = SchedulerFactory.get(BenchmarkInstances.MAX_RESOURCE_CAPACITY,
+					BenchmarkInstances.plans(numPlans), BenchmarkInstances.W_START, wEnd);
+			solution = scheduler.buildSchedule();
+			builtEvents = EventUtils.cloneSet(scheduler.lastRun.events);
+
+			// A task that does not belong to any plan of the instance, which can
+			// be placed anywhere in the temporal window
+			probe = TaskFactory.getTask(1, numPlans + 1, "probe", 1, 1, BenchmarkInstances.W_START, wEnd, 3, 0,
+					Collections.emptyList());
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() throws CloneNotSupportedException {
+			s = (Schedule) solution.clone();
+			events = EventUtils.cloneSet(builtEvents);
+		}
+	}
+
+	/**
+	 * A group of plans having all the same priority value.
+	 */
+	@State(Scope.Benchmark)
+	public static class Group {
+		@Param({ "5", "10", "20", "40" })
+		int groupSize;
+
+		Scheduler scheduler;
+		List<Plan> plans;
+		int wEnd;
+
+		Schedule s;
+		TreeSet<Event> events;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			wEnd = BenchmarkInstances.wEnd(groupSize);
+			plans = new ArrayList<>(BenchmarkInstances.plans(groupSize));
+			scheduler = SchedulerFactory.get(BenchmarkInstances.MAX_RESOURCE_CAPACITY, new HashSet<>(plans),
+					BenchmarkInstances.W_START, wEnd);
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			s = Schedule.get(BenchmarkInstances.W_START, wEnd);
+			events = new TreeSet<>(Event.getComparator());
+			events.add(Event.get(BenchmarkInstances.W_START, scheduler.resourcesIDs));
+			events.add(Event.get(wEnd, scheduler.resourcesIDs));
+		}
+	}
+
+	/**
+	 * An instance of 1000 plans split into the given number of independent
+	 * components, scheduled with or without decomposition.
+	 */
+	@State(Scope.Benchmark)
+	public static class Components {
+		@Param({ "1", "8", "32" })
+		int components;
+
+		@Param({ "false", "true" })
+		boolean decompose;
+
+		Set<Plan> plans;
+		int wEnd;
+		Scheduler scheduler;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			InstanceGenerator g = BenchmarkInstances.generator(1000);
+			g.setComponents(components);
+			plans = g.generate();
+			wEnd = g.getwEnd();
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			scheduler = SchedulerFactory.get(BenchmarkInstances.MAX_RESOURCE_CAPACITY, plans,
+					BenchmarkInstances.W_START, wEnd);
+			scheduler.setDecomposeComponents(decompose);
+		}
+	}
+
+	/**
+	 * An instance of 1000 plans, with distinct priorities, whose placements are
+	 * computed by the given number of threads.
+	 */
+	@State(Scope.Benchmark)
+	public static class Placement {
+		@Param({ "1", "2", "4", "8" })
+		int placementParallelism;
+
+		Set<Plan> plans;
+		int wEnd;
+		Scheduler scheduler;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			plans = BenchmarkInstances.plans(1000);
+			wEnd = BenchmarkInstances.wEnd(1000);
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			scheduler = SchedulerFactory.get(BenchmarkInstances.MAX_RESOURCE_CAPACITY, plans,
+					BenchmarkInstances.W_START, wEnd);
+			scheduler.setPlacementParallelism(placementParallelism);
+		}
+	}
+
+	@Benchmark
+	public Schedule buildScheduleComponents(Components components) {
+		return components.scheduler.buildSchedule();
+	}
+
+	@Benchmark
+	public Schedule buildSchedulePlacement(Placement placement) {
+		return placement.scheduler.buildSchedule();
+	}
+
+	@Benchmark
+	public Schedule buildSchedule(Instance instance) {
+		return instance.scheduler.buildSchedule();
+	}
+
+	@Benchmark
+	public boolean scheduleTask(Timeline timeline) {
+		return timeline.scheduler.scheduleTask(BenchmarkInstances.MAX_RESOURCE_CAPACITY, timeline.s, timeline.probe,
+				timeline.events);
+	}
+
+	@Benchmark
+	public List<Plan> schedulePlanSet(Group group) {
+		return group.scheduler.schedulePlanSet(group.plans, group.s, group.events,
+				BenchmarkInstances.MAX_RESOURCE_CAPACITY);
+	}
+}
@@ -0,0 +1,109 @@
+package org.lip6.main;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.lip6.scheduler.algorithm.BatchReport;
+import org.lip6.scheduler.algorithm.BatchRunner;
+import org.lip6.scheduler.algorithm.InstanceResult;
+import org.lip6.scheduler.algorithm.Scenario;
+
+/**
+ * Command line interface of {@link BatchRunner}: schedules all the instances of
+ * a directory or of a manifest in a single JVM, and prints the aggregate
+ * throughput and the latency percentiles.<br/>
+ * <br/>
+ * Example of usage:<br/>
+ * {@code java -cp ... org.lip6.main.BatchMain --input /data/nightly --capacity 2 --ws 1 --we 200 --out results.csv}
+ * <br/>
+ * <br/>
+ * Options:
+ * <ul>
+ * <li>{@code --input}: a directory of CSV files, or a manifest (see
+ * {@link BatchRunner#listInstances(String, Scenario)})</li>
+ * <li>{@code --capacity}, {@code --ws}, {@code --we}: the maximum resource
+ * capacity and the temporal window of the instances that do not specify their
+ * own (default 2, 1, 200)</li>
+ * <li>{@code --threads}: the size of the pool, when virtual threads are not
+ * used (default: the number of processors)</li>
+ * <li>{@code --in-flight}: the maximum number of instances in memory (default:
+ * twice the threads)</li>
+ * <li>{@code --no-virtual-threads}: use the pool even if virtual threads are
+ * available</li>
+ * <li>{@code --out}: a CSV file where the result of each instance is saved</li>
+ * </ul>
+ */
+public class BatchMain {
+
+	private enum csvHeaders {
+		file, capacity, wStart, wEnd, plans, scheduledPlans, parseMs, scheduleMs, latencyMs, error
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> opts = parseOptions(args);
+		if (!opts.containsKey("input")) {
+			System.err.println("Missing option --input <directory|manifest>");
+			System.exit(2);
+		}
+
+		Scenario scenario = Scenario.get(Integer.parseInt(opts.getOrDefault("capacity", "2")),
+				Integer.parseInt(opts.getOrDefault("ws", "1")), Integer.parseInt(opts.getOrDefault("we", "200")));
+		BatchRunner runner = BatchRunner.get(scenario);
+		if (opts.containsKey("threads")) {
+			runner.setThreads(Integer.parseInt(opts.get("threads")));
+			runner.setMaxInFlight(2 * runner.getThreads());
+		}
+		if (opts.containsKey("in-flight")) {
+			runner.setMaxInFlight(Integer.parseInt(opts.get("in-flight")));
+		}
+		runner.setUseVirtualThreads(!opts.containsKey("no-virtual-threads"));
+		runner.setListener(x -> {
+			if (x.isFailed()) {
+				System.err.println(x);
+			}
+		});
+
+		BatchReport report = runner.run(opts.get("input"));
+		System.out.println(report);
+
+		if (opts.containsKey("out")) {
+			try (CSVPrinter printer = CSVFormat.EXCEL.withHeader(csvHeaders.class)
+					.print(new FileWriter(opts.get("out")))) {
+				for (InstanceResult r : report.getResults()) {
+					printer.printRecord(r.getFilename(), r.getScenario().getMaxResourceCapacity(),
+							r.getScenario().getwStart(), r.getScenario().getwEnd(), r.getPlans(),
+							r.getScheduledPlans(), r.getParseTime(), r.getScheduleTime(), r.getLatency(),
+							r.getError().orElse(""));
+				}
+			}
+		}
+
+		if (report.getFailures() > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Parse the options given as {@code --name value}, or {@code --name} for the
+	 * flags.
+	 */
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> opts = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+			}
+			String name = args[i].substring(2);
+			if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+				opts.put(name, args[++i]);
+			} else {
+				opts.put(name, "");
+			}
+		}
+		return opts;
+	}
+}
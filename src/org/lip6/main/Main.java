@@ -1,21 +1,18 @@
 package org.lip6.main;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+
 import org.lip6.scheduler.algorithm.Scheduler;
 import org.lip6.scheduler.algorithm.SchedulerFactory;
-
-import etm.core.configuration.BasicEtmConfigurator;
-import etm.core.configuration.EtmManager;
-import etm.core.monitor.EtmMonitor;
-import etm.core.timer.DefaultTimer;
+import org.lip6.scheduler.algorithm.SchedulerInstrumentation;
+import org.lip6.scheduler.algorithm.SchedulerInstrumentation.Level;
 
 public class Main {
 
-	private static EtmMonitor monitor;
-
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		// configure measurement framework
-		// setup();
-		// EtmPoint point = monitor.createPoint("Scheduler:buildSchedule");
+		SchedulerInstrumentation.setLevel(Level.FULL);
 
 		String filename = "/home/davide/test_case_2.csv";
 		// String filename = "/home/davide/paper_plans_nouveau.csv";
@@ -25,33 +22,18 @@ public class Main {
 
 		Scheduler sc = SchedulerFactory.getFromFile(maxResourceCapacity, WStart, WEnd, filename);
 
-		// try {
-
 		long startTime = System.currentTimeMillis();
 		sc.buildSchedule();
 		long endTime = System.currentTimeMillis();
-		long result = endTime - startTime; // Note, part might be backwards, I
-											// don't
+		long result = endTime - startTime;
 
 		System.err.println("---> " + Long.toString(result));
-		/*
-		 * } finally { point.collect(); }
-		 */
+
 		// visualize results
-		// monitor.render(new SimpleTextRenderer());
+		SchedulerInstrumentation.render(new PrintWriter(System.err));
 
 		// shutdown measurement framework
-		// tearDown();
-	}
-
-	private static void setup() {
-		BasicEtmConfigurator.configure(true, new DefaultTimer());
-		monitor = EtmManager.getEtmMonitor();
-		monitor.start();
-	}
-
-	private static void tearDown() {
-		monitor.stop();
+		SchedulerInstrumentation.setLevel(Level.OFF);
 	}
 
 }
@@ -44,8 +44,4 @@ public interface Plan {
 	int getExecutionTime();
 
 	int getNumberOfTasks();
-
-	boolean isSchedulable();
-
-	void setSchedulable(boolean schedulable);
 }
@@ -12,7 +12,6 @@ import org.lip6.graph.TopologicalSorting;
 public class PlanImpl extends ExecutableNode implements Plan {
 
 	private final int ID;
-	private boolean schedulable;
 	private final int priority;
 	/**
 	 * The <b>*maximum*</b> execution time required by this plan. It is the
@@ -47,7 +46,6 @@ public class PlanImpl extends ExecutableNode implements Plan {
 		this.ID = ID;
 		this.priority = priority;
 		this.executionTime = 0;
-		this.schedulable = true;
 		successors = new ArrayList<>();
 		syncTasks = new ArrayList<>();
 		startTime = Integer.MAX_VALUE;
@@ -238,16 +236,6 @@ public class PlanImpl extends ExecutableNode implements Plan {
 		return tasks.stream().collect(Collectors.toList());
 	}
 
-	@Override
-	public boolean isSchedulable() {
-		return schedulable;
-	}
-
-	@Override
-	public void setSchedulable(boolean schedulable) {
-		this.schedulable = schedulable;
-	}
-
 	@Override
 	public String toString() {
 		return "Plan [ID=" + ID + ", tasks=[\n\t"
@@ -5,14 +5,24 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.collections4.list.TreeList;
 import org.lip6.scheduler.utils.Utils;
@@ -51,7 +61,20 @@ public class Schedule implements Cloneable {
 	 * basic operations (add, remove and contains). Also, it lets to specify a
 	 * comparator to keep the set sorted after insertion/removal operations.
 	 */
-	private final TreeSet<TaskSchedule> schedule;	
+	private final TreeSet<TaskSchedule> schedule;
+
+	/**
+	 * For each scheduled plan (key), the schedules of its tasks by task ID
+	 * (value), in the order they have been added
+	 */
+	private final Map<Integer, Map<Integer, TaskSchedule>> byPlan;
+
+	/**
+	 * For each resource (key), the schedules of the tasks allocated to it
+	 * (value), sorted as in {@link #COMPARATOR} and indexed by the interval in
+	 * which they are executed
+	 */
+	private final Map<Integer, TaskIntervals> byResource;
 
 	private Schedule(int wStart, int wEnd) {
 		// this.numResources = numResources;
@@ -59,14 +82,30 @@ public class Schedule implements Cloneable {
 		WEnd = wEnd;
 		plans = new ArrayList<>();
 		lastTaskForResource = new HashMap<>();
-		schedule = new TreeSet<>(new Comparator<TaskSchedule>() {
-			@Override
-			public int compare(TaskSchedule o1, TaskSchedule o2) {
-				return Integer.compare(o1.getStartingTime(), o2.getStartingTime());
-			}
-		});
+		byPlan = new HashMap<>();
+		byResource = new HashMap<>();
+		schedule = new TreeSet<>(COMPARATOR);
 	}
 
+	/**
+	 * Sort the task schedules by starting time. Tasks that start at the same
+	 * time are distinguished by their plan and task IDs, otherwise a set would
+	 * keep only one of them.
+	 */
+	private static final Comparator<TaskSchedule> COMPARATOR = new Comparator<TaskSchedule>() {
+		@Override
+		public int compare(TaskSchedule o1, TaskSchedule o2) {
+			int c = Integer.compare(o1.getStartingTime(), o2.getStartingTime());
+			if (c == 0) {
+				c = Integer.compare(o1.getTask().getPlanID(), o2.getTask().getPlanID());
+			}
+			if (c == 0) {
+				c = Integer.compare(o1.getTask().getID(), o2.getTask().getID());
+			}
+			return c;
+		}
+	};
+
 	/**
 	 * Get an instance of Schedule
 	 * 
@@ -103,13 +142,15 @@ public class Schedule implements Cloneable {
 
 		schedule.forEach(sc -> {
 			try {
-				s.schedule.add((TaskSchedule) sc.clone());
+				s.index((TaskSchedule) sc.clone());
 			} catch (CloneNotSupportedException e) {
 				e.printStackTrace();
 			}
 		});
 
-		s.plans.addAll(new ArrayList<>(plans));
+		// Keep the order in which the plans have been scheduled
+		s.plans.clear();
+		s.plans.addAll(plans);
 		return s;
 	}
 
@@ -119,8 +160,7 @@ public class Schedule implements Cloneable {
 	 */
 	public int getAccomplishmentTime(int planID, int taskID) {
 		// Find the corresponding task assignment
-		Optional<TaskSchedule> s = schedule.stream()
-				.filter(x -> ((Task) x.getTask()).getPlanID() == planID && x.getTask().getID() == taskID).findFirst();
+		Optional<TaskSchedule> s = getTaskSchedule(planID, taskID);
 
 		// if the task has been scheduled, get its accomplishment time
 		if (s.isPresent()) {
@@ -133,7 +173,19 @@ public class Schedule implements Cloneable {
 	}
 
 	/**
-	 * Add the task t to this schedule to the given starting time.
+	 * Get the schedule of the given task
+	 * 
+	 * @param planID
+	 * @param taskID
+	 * @return the schedule of the task, if it has been scheduled
+	 */
+	public Optional<TaskSchedule> getTaskSchedule(int planID, int taskID) {
+		return Optional.ofNullable(byPlan.getOrDefault(planID, Collections.emptyMap()).get(taskID));
+	}
+
+	/**
+	 * Add the task t to this schedule to the given starting time. If the task
+	 * is already scheduled, it is moved to the given starting time.
 	 * 
 	 * @param startingTime
 	 * @param t
@@ -144,18 +196,32 @@ public class Schedule implements Cloneable {
 		if (startingTime <= 0) {
 			throw new IllegalArgumentException("Starting time can not be <= 0");
 		}
+		Optional<TaskSchedule> previous = getTaskSchedule(task.getPlanID(), task.getID());
+		if (previous.isPresent()) {
+			unSchedule(Collections.singleton(previous.get()));
+		}
 		// Create a new task assignment for task t at starting time startingTime
 		TaskSchedule s = new TaskSchedule(task, startingTime, task.getResourceID());
+		index(s);
+
+		// Keep the task t as the last task assigned for the resource at which
+		// it refers.
+		lastTaskForResource.put(task.getResourceID(), s);
+	}
+
+	/**
+	 * Add the given task schedule to the set and to the indexes
+	 */
+	private void index(TaskSchedule s) {
+		Task task = s.getTask();
 		schedule.add(s);
+		byResource.computeIfAbsent(s.getResource(), k -> new TaskIntervals(COMPARATOR)).add(s);
 
 		// Keep the ID of the plan which contains t
-		if (!plans.contains(task.getPlanID())) {
+		if (!byPlan.containsKey(task.getPlanID())) {
 			plans.add(task.getPlanID());
 		}
-
-		// Keep the task t as the last task assigned for the resource at which
-		// it refers.
-		lastTaskForResource.put(task.getResourceID(), s);
+		byPlan.computeIfAbsent(task.getPlanID(), k -> new LinkedHashMap<>()).put(task.getID(), s);
 	}
 
 	/**
@@ -176,19 +242,171 @@ public class Schedule implements Cloneable {
 		return WStart;
 	}
 
+	/**
+	 * @return a copy of the task schedules, sorted by starting time. See
+	 *         {@link #taskScheduleView()} to read them without copying.
+	 */
 	public List<TaskSchedule> taskSchedules() {
 		return Collections.unmodifiableList(new ArrayList<>(schedule));
 	}
 
+	/**
+	 * @return an unmodifiable view of the task schedules, sorted by starting
+	 *         time. The view reflects the changes of this schedule, which must
+	 *         not be modified while the view is iterated.
+	 */
+	public NavigableSet<TaskSchedule> taskScheduleView() {
+		return Collections.unmodifiableNavigableSet(schedule);
+	}
+
+	/**
+	 * Get the schedules of the tasks of the given plan
+	 * 
+	 * @param planID
+	 * @return an unmodifiable view of the task schedules, in the order they have
+	 *         been added, empty if the plan has not been scheduled
+	 */
+	public Collection<TaskSchedule> tasksOf(int planID) {
+		return Collections.unmodifiableCollection(byPlan.getOrDefault(planID, Collections.emptyMap()).values());
+	}
+
+	/**
+	 * Get the schedules of the tasks that are executed at the given time
+	 * instant, that is, that start not after it and terminate after it
+	 * 
+	 * @param time
+	 * @return the task schedules, sorted by starting time. They are read from
+	 *         this schedule as the stream is consumed.
+	 */
+	public Stream<TaskSchedule> tasksAt(int time) {
+		// The tasks of each resource are already sorted: merge them, so that
+		// only the next task of each resource is held
+		Iterator<TaskSchedule> merge = new Iterator<TaskSchedule>() {
+			private PriorityQueue<PeekingIterator> heads;
+
+			@Override
+			public boolean hasNext() {
+				if (heads == null) {
+					heads = new PriorityQueue<>(Math.max(1, byResource.size()),
+							(a, b) -> COMPARATOR.compare(a.peek(), b.peek()));
+					for (int r : byResource.keySet()) {
+						PeekingIterator it = new PeekingIterator(tasksOn(r, time, time + 1).iterator());
+						if (it.hasNext()) {
+							heads.add(it);
+						}
+					}
+				}
+				return !heads.isEmpty();
+			}
+
+			@Override
+			public TaskSchedule next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				PeekingIterator it = heads.poll();
+				TaskSchedule next = it.next();
+				if (it.hasNext()) {
+					heads.add(it);
+				}
+				return next;
+			}
+		};
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(merge, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * An iterator whose next element can be read without moving to it
+	 */
+	private static final class PeekingIterator implements Iterator<TaskSchedule> {
+		private final Iterator<TaskSchedule> it;
+		private TaskSchedule next;
+
+		PeekingIterator(Iterator<TaskSchedule> it) {
+			this.it = it;
+			next = it.hasNext() ? it.next() : null;
+		}
+
+		TaskSchedule peek() {
+			return next;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public TaskSchedule next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			TaskSchedule current = next;
+			next = it.hasNext() ? it.next() : null;
+			return current;
+		}
+	}
+
+	/**
+	 * Get the schedules of the tasks allocated to the given resource that are
+	 * executed in the interval [from, to)
+	 * 
+	 * @param resource the ID of the resource
+	 * @param from
+	 * @param to
+	 * @return the task schedules, sorted as in {@link #taskSchedules()}. They
+	 *         are read from this schedule as the stream is consumed.
+	 */
+	public Stream<TaskSchedule> tasksOn(int resource, int from, int to) {
+		TaskIntervals tasks = byResource.get(resource);
+		if (tasks == null || from >= to) {
+			return Stream.empty();
+		}
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(tasks.overlapping(from, to),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Remove the given task schedules from this schedule. A plan whose tasks
+	 * have all been removed is no longer a scheduled plan.
+	 * 
+	 * @param collection
+	 */
 	public void unSchedule(Collection<TaskSchedule> collection) {
-		schedule.removeAll(collection);
-		lastTaskForResource.values().removeAll(collection);
+		// The resources whose last allocated task has been removed
+		Set<Integer> resources = new HashSet<>();
+		for (TaskSchedule x : new ArrayList<>(collection)) {
+			int planID = x.getTask().getPlanID();
+			Optional<TaskSchedule> found = getTaskSchedule(planID, x.getTask().getID());
+			if (!found.isPresent() || found.get().getStartingTime() != x.getStartingTime()) {
+				continue;
+			}
+			schedule.remove(found.get());
+			byResource.get(found.get().getResource()).remove(found.get());
+
+			Map<Integer, TaskSchedule> planTasks = byPlan.get(planID);
+			planTasks.remove(x.getTask().getID());
+			if (planTasks.isEmpty()) {
+				byPlan.remove(planID);
+				plans.remove(Integer.valueOf(planID));
+			}
+
+			if (x.equals(lastTaskForResource.get(x.getResource()))) {
+				lastTaskForResource.remove(x.getResource());
+				resources.add(x.getResource());
+			}
+		}
+		if (resources.isEmpty()) {
+			return;
+		}
 
 		// Since schedules are removed from the map that keeps the last
 		// allocated task(value) for resource(key), this map has to be updated.
-		// So, for each of the remaining task, rebuild the map containing the
-		// latest allocated task for resource
-		schedule.forEach(x -> {
+		// So, for each of the remaining task that uses one of the affected
+		// resources, rebuild the map containing the latest allocated task for
+		// resource
+		resources.stream().flatMap(r -> StreamSupport.stream(byResource.get(r).spliterator(), false)).forEach(x -> {
 			if (!lastTaskForResource.containsKey(x.getResource())) {
 				lastTaskForResource.put(x.getResource(), x);
 			} else {
@@ -209,8 +427,8 @@ public class Schedule implements Cloneable {
 	public String toString() {
 		String s = "";
 		for (int plan : plans()) {
-			String tasks = schedule.stream().map(TaskSchedule::getTask).filter(x -> ((Task) x).getPlanID() == plan)
-					.map(x -> Integer.toString(x.getID())).collect(Collectors.joining(","));
+			String tasks = byPlan.get(plan).keySet().stream().map(x -> Integer.toString(x))
+					.collect(Collectors.joining(","));
 			s = s.concat("Plan #" + plan + ": {" + tasks + "}\n");
 		}
 
@@ -0,0 +1,235 @@
+package org.lip6.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The schedules of the tasks allocated to a resource, as an interval tree: a
+ * treap sorted by the given comparator, whose nodes keep the latest
+ * accomplishment date of their subtree. The task schedules executed in an
+ * interval are found in O((k + 1) log n) expected time, where k is the number
+ * of task schedules found, whatever the processing times of the other tasks.
+ *
+ * @author davide
+ *
+ */
+final class TaskIntervals implements Iterable<TaskSchedule> {
+
+	private static final class Node {
+		final TaskSchedule value;
+		final int end;
+		final int priority;
+		/**
+		 * The latest accomplishment date of the task schedules of the subtree
+		 */
+		int maxEnd;
+		Node left;
+		Node right;
+
+		Node(TaskSchedule value) {
+			this.value = value;
+			end = value.getStartingTime() + value.getTask().getProcessingTime();
+			maxEnd = end;
+			// A deterministic priority, so that the shape of the tree does not
+			// change from a run to another
+			long h = ((long) value.getTask().getPlanID() * 31 + value.getTask().getID()) * 31
+					+ value.getStartingTime();
+			h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+			h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+			priority = (int) (h ^ (h >>> 33));
+		}
+
+		void update() {
+			maxEnd = end;
+			if (left != null) {
+				maxEnd = Math.max(maxEnd, left.maxEnd);
+			}
+			if (right != null) {
+				maxEnd = Math.max(maxEnd, right.maxEnd);
+			}
+		}
+	}
+
+	private final Comparator<TaskSchedule> comparator;
+	private Node root;
+	private int size;
+
+	TaskIntervals(Comparator<TaskSchedule> comparator) {
+		this.comparator = comparator;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Add the given task schedule, which must not be equal, according to the
+	 * comparator, to a task schedule already added
+	 */
+	void add(TaskSchedule s) {
+		root = insert(root, new Node(s));
+		size++;
+	}
+
+	/**
+	 * Remove the task schedule equal, according to the comparator, to the given
+	 * one
+	 *
+	 * @return <b>true</b> if a task schedule has been removed
+	 */
+	boolean remove(TaskSchedule s) {
+		int before = size;
+		root = delete(root, s);
+		return size < before;
+	}
+
+	private Node insert(Node n, Node x) {
+		if (n == null) {
+			return x;
+		}
+		if (comparator.compare(x.value, n.value) < 0) {
+			n.left = insert(n.left, x);
+			if (n.left.priority > n.priority) {
+				n = rotateRight(n);
+			}
+		} else {
+			n.right = insert(n.right, x);
+			if (n.right.priority > n.priority) {
+				n = rotateLeft(n);
+			}
+		}
+		n.update();
+		return n;
+	}
+
+	private Node delete(Node n, TaskSchedule s) {
+		if (n == null) {
+			return null;
+		}
+		int c = comparator.compare(s, n.value);
+		if (c < 0) {
+			n.left = delete(n.left, s);
+		} else if (c > 0) {
+			n.right = delete(n.right, s);
+		} else {
+			size--;
+			return merge(n.left, n.right);
+		}
+		n.update();
+		return n;
+	}
+
+	/**
+	 * Merge two treaps, the keys of the first one preceding the keys of the
+	 * second one
+	 */
+	private static Node merge(Node a, Node b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			a.update();
+			return a;
+		}
+		b.left = merge(a, b.left);
+		b.update();
+		return b;
+	}
+
+	private static Node rotateRight(Node n) {
+		Node l = n.left;
+		n.left = l.right;
+		l.right = n;
+		n.update();
+		l.update();
+		return l;
+	}
+
+	private static Node rotateLeft(Node n) {
+		Node r = n.right;
+		n.right = r.left;
+		r.left = n;
+		n.update();
+		r.update();
+		return r;
+	}
+
+	/**
+	 * @return the task schedules, sorted by the comparator
+	 */
+	@Override
+	public Iterator<TaskSchedule> iterator() {
+		return overlapping(Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Get the task schedules executed in the interval [from, to), that is, that
+	 * start before to and terminate after from
+	 *
+	 * @param from
+	 * @param to
+	 * @return the task schedules, sorted by the comparator. The subtrees whose
+	 *         task schedules all terminate not after from are not visited.
+	 */
+	Iterator<TaskSchedule> overlapping(int from, int to) {
+		return new Iterator<TaskSchedule>() {
+			private final Deque<Node> stack = new ArrayDeque<>();
+			private Node next;
+
+			{
+				pushLeft(root);
+				advance();
+			}
+
+			private void pushLeft(Node n) {
+				while (n != null && n.maxEnd > from) {
+					stack.push(n);
+					n = n.left;
+				}
+			}
+
+			private void advance() {
+				next = null;
+				while (!stack.isEmpty()) {
+					Node n = stack.pop();
+					// The task schedules that follow start not before n
+					if (n.value.getStartingTime() >= to) {
+						stack.clear();
+						return;
+					}
+					pushLeft(n.right);
+					if (n.end > from) {
+						next = n;
+						return;
+					}
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public TaskSchedule next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				TaskSchedule current = next.value;
+				advance();
+				return current;
+			}
+		};
+	}
+}
@@ -0,0 +1,77 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of a batch of instances scheduled by a {@link BatchRunner},
+ * together with the aggregate throughput and the percentiles of the
+ * per-instance latency. Times are expressed in milliseconds.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class BatchReport {
+	private final List<InstanceResult> results;
+	private final double wallTime;
+	/**
+	 * The latencies of the successful instances, sorted
+	 */
+	private final double[] latencies;
+
+	BatchReport(List<InstanceResult> results, double wallTime) {
+		this.results = Collections.unmodifiableList(results);
+		this.wallTime = wallTime;
+		latencies = results.stream().filter(x -> !x.isFailed()).mapToDouble(InstanceResult::getLatency).toArray();
+		Arrays.sort(latencies);
+	}
+
+	/**
+	 * @return the results, in the same order as the instances of the batch
+	 */
+	public List<InstanceResult> getResults() {
+		return results;
+	}
+
+	public long getFailures() {
+		return results.stream().filter(InstanceResult::isFailed).count();
+	}
+
+	public double getWallTime() {
+		return wallTime;
+	}
+
+	/**
+	 * @return the number of instances completed per second
+	 */
+	public double getThroughput() {
+		return wallTime == 0 ? 0 : results.size() * 1000.0 / wallTime;
+	}
+
+	/**
+	 * Get a percentile of the latency of the successful instances, using the
+	 * nearest-rank method.
+	 * 
+	 * @param p a value in (0,100]
+	 * @return the latency, or 0 if no instance has been scheduled
+	 */
+	public double getLatencyPercentile(double p) {
+		if (p <= 0 || p > 100) {
+			throw new IllegalArgumentException("Percentile must be in (0,100].");
+		}
+		if (latencies.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(p / 100 * latencies.length);
+		return latencies[Math.max(0, rank - 1)];
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"instances=%d failures=%d wall=%.1fms throughput=%.2f/s latency p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+				results.size(), getFailures(), wallTime, getThroughput(), getLatencyPercentile(50),
+				getLatencyPercentile(90), getLatencyPercentile(99), getLatencyPercentile(100));
+	}
+}
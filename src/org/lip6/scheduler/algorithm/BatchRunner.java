@@ -0,0 +1,301 @@
+package org.lip6.scheduler.algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.utils.CSVParser;
+import org.lip6.scheduler.utils.Utils;
+
+/**
+ * Schedules many instances (CSV files readable by {@link CSVParser})
+ * concurrently in the same JVM. Each instance is one task that parses the file
+ * and then schedules its plans, so the parsing of an instance overlaps with the
+ * scheduling of the others. At most {@link #getMaxInFlight()} instances are
+ * parsed or scheduled at the same time, so that the memory used does not depend
+ * on the size of the batch.<br/>
+ * <br/>
+ * The tasks run on virtual threads, if the JVM provides them, or otherwise on a
+ * pool of {@link #getThreads()} threads.<br/>
+ * <br/>
+ * Example of usage:
+ *
+ * <pre>
+ * {@code
+ * BatchRunner runner = BatchRunner.get(Scenario.get(2, 1, 200));
+ * BatchReport report = runner.run("/data/nightly");
+ * System.out.println(report);
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public class BatchRunner {
+
+	/**
+	 * The parameters used for the instances that do not specify their own
+	 */
+	private final Scenario defaultScenario;
+	private int threads;
+	private int maxInFlight;
+	private boolean useVirtualThreads;
+	private Optional<Consumer<InstanceResult>> listener;
+
+	private BatchRunner(Scenario defaultScenario) {
+		this.defaultScenario = defaultScenario;
+		threads = Runtime.getRuntime().availableProcessors();
+		maxInFlight = 2 * threads;
+		useVirtualThreads = true;
+		listener = Optional.empty();
+	}
+
+	/**
+	 * Static factory method for BatchRunner
+	 *
+	 * @param defaultScenario the maximum resource capacity and the temporal window
+	 *                        of the instances that do not specify their own
+	 * @return
+	 */
+	public static BatchRunner get(Scenario defaultScenario) {
+		return new BatchRunner(defaultScenario);
+	}
+
+	public Scenario getDefaultScenario() {
+		return defaultScenario;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of threads of the pool used when virtual threads are not
+	 * available (or not used)
+	 *
+	 * @param threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = Utils.requireValidBounds(threads, 1, Integer.MAX_VALUE,
+				"Number of threads must be a positive integer value.");
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	/**
+	 * Set the maximum number of instances held in memory at the same time
+	 *
+	 * @param maxInFlight
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = Utils.requireValidBounds(maxInFlight, 1, Integer.MAX_VALUE,
+				"Maximum number of instances in flight must be a positive integer value.");
+	}
+
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	/**
+	 * If true (the default), run the instances on virtual threads when the JVM
+	 * provides them (Java 21 or later)
+	 *
+	 * @param useVirtualThreads
+	 */
+	public void setUseVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+
+	/**
+	 * Set a listener invoked, from the worker threads, as soon as an instance is
+	 * completed
+	 *
+	 * @param listener
+	 */
+	public void setListener(Consumer<InstanceResult> listener) {
+		this.listener = Optional.ofNullable(listener);
+	}
+
+	/**
+	 * Schedule all the instances in the given directory (the files with extension
+	 * .csv) or listed in the given manifest.
+	 *
+	 * @param path a directory or a manifest file
+	 * @return
+	 * @throws IOException if the directory or the manifest cannot be read
+	 */
+	public BatchReport run(String path) throws IOException {
+		return run(listInstances(path, defaultScenario));
+	}
+
+	/**
+	 * Schedule the given instances
+	 *
+	 * @param instances pairs of (CSV file name, parameters of the scheduler)
+	 * @return the report, whose results are in the same order as the instances
+	 */
+	public BatchReport run(List<ImmutablePair<String, Scenario>> instances) {
+		ExecutorService executor = newExecutor();
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		List<CompletableFuture<InstanceResult>> futures = new ArrayList<>();
+
+		long start = System.nanoTime();
+		try {
+			for (ImmutablePair<String, Scenario> instance : instances) {
+				// Wait until an instance leaves the batch
+				inFlight.acquire();
+				long admitted = System.nanoTime();
+				CompletableFuture<InstanceResult> f = CompletableFuture
+						.supplyAsync(() -> schedule(instance.left, instance.right, admitted), executor);
+				f.whenComplete((result, ex) -> {
+					inFlight.release();
+					if (result != null && listener.isPresent()) {
+						listener.get().accept(result);
+					}
+				});
+				futures.add(f);
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while scheduling the instances", e);
+		} finally {
+			executor.shutdownNow();
+		}
+		double wallTime = (System.nanoTime() - start) / 1e6;
+
+		List<InstanceResult> results = new ArrayList<>();
+		futures.forEach(x -> results.add(x.join()));
+		return new BatchReport(results, wallTime);
+	}
+
+	/**
+	 * Parse and schedule an instance. Errors are reported in the result, so that
+	 * an instance does not stop the batch.
+	 */
+	private static InstanceResult schedule(String filename, Scenario scenario, long admitted) {
+		long start = System.nanoTime();
+		Map<Integer, Plan> plans;
+		try {
+			plans = CSVParser.parse(filename);
+		} catch (Exception e) {
+			return failed(filename, scenario, start, admitted, e);
+		}
+		long parsed = System.nanoTime();
+
+		try {
+			Scheduler scheduler = SchedulerFactory.get(scenario.getMaxResourceCapacity(),
+					new HashSet<>(plans.values()), scenario.getwStart(), scenario.getwEnd());
+			scheduler.buildSchedule();
+			long end = System.nanoTime();
+			return new InstanceResult(filename, scenario, plans.size(), scheduler.getScheduledPlans().size(),
+					(parsed - start) / 1e6, (end - parsed) / 1e6, (end - admitted) / 1e6, Optional.empty());
+		} catch (Exception e) {
+			return failed(filename, scenario, start, admitted, e);
+		}
+	}
+
+	private static InstanceResult failed(String filename, Scenario scenario, long start, long admitted,
+			Exception e) {
+		long end = System.nanoTime();
+		return new InstanceResult(filename, scenario, 0, 0, (end - start) / 1e6, 0, (end - admitted) / 1e6,
+				Optional.of(e.toString()));
+	}
+
+	/**
+	 * Get an executor that runs each task in a new virtual thread, if available,
+	 * or a pool of {@link #threads} threads. Virtual threads are looked up by
+	 * reflection, so that this class can be compiled for Java 8.
+	 */
+	private ExecutorService newExecutor() {
+		if (useVirtualThreads) {
+			try {
+				Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) m.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				// Virtual threads not available: use a pool
+			}
+		}
+		return Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Get the instances of a batch. If the path is a directory, the instances are
+	 * its files with extension .csv, sorted by name. Otherwise, the path is a
+	 * manifest: a text file having one instance per line, in the format<br/>
+	 * <br/>
+	 * <code>file [maxResourceCapacity wStart wEnd]</code><br/>
+	 * <br/>
+	 * where relative file names are resolved against the directory of the
+	 * manifest. Empty lines and lines starting with # are ignored.
+	 *
+	 * @param path            a directory or a manifest file
+	 * @param defaultScenario the parameters of the instances that do not specify
+	 *                        their own
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<ImmutablePair<String, Scenario>> listInstances(String path, Scenario defaultScenario)
+			throws IOException {
+		File f = new File(path);
+		List<ImmutablePair<String, Scenario>> instances = new ArrayList<>();
+
+		if (f.isDirectory()) {
+			File[] files = f.listFiles((dir, name) -> name.toLowerCase().endsWith(".csv"));
+			if (files == null) {
+				throw new IOException("Cannot list directory \"" + path + "\"");
+			}
+			Arrays.sort(files);
+			for (File file : files) {
+				instances.add(ImmutablePair.of(file.getPath(), defaultScenario));
+			}
+			return instances;
+		}
+
+		int lineNumber = 0;
+		for (String line : Files.readAllLines(f.toPath(), StandardCharsets.UTF_8)) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\\s+");
+			if (fields.length != 1 && fields.length != 4) {
+				throw new IllegalArgumentException("Invalid manifest line " + lineNumber + ": \"" + line + "\"");
+			}
+
+			File file = new File(fields[0]);
+			if (!file.isAbsolute()) {
+				file = new File(f.getAbsoluteFile().getParentFile(), fields[0]);
+			}
+			Scenario scenario = defaultScenario;
+			if (fields.length == 4) {
+				try {
+					scenario = Scenario.get(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+							Integer.parseInt(fields[3]));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Invalid manifest line " + lineNumber + ": \"" + line + "\"");
+				}
+			}
+			instances.add(ImmutablePair.of(file.getPath(), scenario));
+		}
+		return instances;
+	}
+}
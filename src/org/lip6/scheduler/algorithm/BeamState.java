@@ -0,0 +1,175 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.lip6.scheduler.Plan;
+
+/**
+ * A partial schedule of a set of plans having the same priority value, kept
+ * by the beam search of ALGORITHM 3 (see {@link Scheduler#setBeamWidth(int)}).
+ * <br/>
+ * <br/>
+ * A state does not hold a schedule nor a timeline: it holds only the decision
+ * that leads to it from its parent, that is, the plan placed and the plans
+ * found not schedulable by the expansion of the parent. The states of a beam
+ * share their common decisions, so a beam of width B costs O(B) decisions per
+ * level instead of B copies of the timeline. The schedule of a state is
+ * rebuilt, when the state is expanded, by placing its plans in order on a
+ * copy of the timeline the set of plans starts from.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class BeamState {
+
+	/**
+	 * The most scheduled plans first, then the smallest idle time
+	 */
+	static final Comparator<BeamState> ORDER = Comparator.comparingInt((BeamState s) -> -s.scheduled)
+			.thenComparingLong(s -> s.idleTime);
+
+	private final BeamState parent;
+	/**
+	 * The plan placed by this state, if any
+	 */
+	private final Plan plan;
+	/**
+	 * The plans found not schedulable by the expansion of the parent
+	 */
+	private final List<Plan> failed;
+	/**
+	 * The number of plans of the set
+	 */
+	private final int plans;
+	/**
+	 * The number of plans placed by this state and its ancestors
+	 */
+	final int scheduled;
+	/**
+	 * The number of plans either placed or found not schedulable by this state
+	 * and its ancestors
+	 */
+	final int decided;
+	/**
+	 * The idle time of the plans placed by this state and its ancestors
+	 */
+	final long idleTime;
+
+	private BeamState(BeamState parent, Plan plan, List<Plan> failed, int plans, int scheduled, int decided,
+			long idleTime) {
+		this.parent = parent;
+		this.plan = plan;
+		this.failed = failed;
+		this.plans = plans;
+		this.scheduled = scheduled;
+		this.decided = decided;
+		this.idleTime = idleTime;
+	}
+
+	/**
+	 * Get the state where no plan of the set has been placed
+	 *
+	 * @param plans the number of plans of the set
+	 * @return
+	 */
+	static BeamState root(int plans) {
+		return new BeamState(null, null, Collections.emptyList(), plans, 0, 0, 0);
+	}
+
+	/**
+	 * Get the state that follows this one by placing the given plan
+	 *
+	 * @param p        the plan placed
+	 * @param idleTime the idle time of p
+	 * @param failed   the plans found not schedulable after this state
+	 * @return
+	 */
+	BeamState place(Plan p, int idleTime, List<Plan> failed) {
+		return new BeamState(this, p, failed, plans, scheduled + 1, decided + 1 + failed.size(),
+				this.idleTime + idleTime);
+	}
+
+	/**
+	 * Get the state that follows this one when none of the given plans can be
+	 * placed
+	 *
+	 * @param failed the plans left, found not schedulable after this state
+	 * @return
+	 */
+	BeamState drop(List<Plan> failed) {
+		return new BeamState(this, null, failed, plans, scheduled, decided + failed.size(), idleTime);
+	}
+
+	/**
+	 * @return true if every plan of the set has been either placed or found not
+	 *         schedulable
+	 */
+	boolean isTerminal() {
+		return decided == plans;
+	}
+
+	/**
+	 * @return true if this state, or one of its descendants, may be better than
+	 *         the given terminal state: the plans left can all be placed at best,
+	 *         and the idle time can only grow
+	 */
+	boolean canImprove(BeamState best) {
+		int bound = scheduled + plans - decided;
+		return bound > best.scheduled || (bound == best.scheduled && idleTime < best.idleTime);
+	}
+
+	/**
+	 * @return the plans placed by this state and its ancestors, in the order
+	 *         they have been placed
+	 */
+	List<Plan> placedPlans() {
+		List<Plan> placed = new ArrayList<>(scheduled);
+		for (BeamState s = this; s != null; s = s.parent) {
+			if (s.plan != null) {
+				placed.add(s.plan);
+			}
+		}
+		Collections.reverse(placed);
+		return placed;
+	}
+
+	/**
+	 * @return the plans found not schedulable by this state and its ancestors
+	 */
+	List<Plan> failedPlans() {
+		List<Plan> all = new ArrayList<>(decided - scheduled);
+		for (BeamState s = this; s != null; s = s.parent) {
+			all.addAll(s.failed);
+		}
+		return all;
+	}
+
+	/**
+	 * Get the plans of the set still to decide, in the order of the set
+	 *
+	 * @param plans the plans of the set
+	 * @return
+	 */
+	List<Plan> remainingPlans(List<Plan> plans) {
+		Set<Integer> done = new HashSet<>();
+		for (BeamState s = this; s != null; s = s.parent) {
+			if (s.plan != null) {
+				done.add(s.plan.getID());
+			}
+			s.failed.forEach(p -> done.add(p.getID()));
+		}
+		return plans.stream().filter(p -> !done.contains(p.getID())).collect(Collectors.toList());
+	}
+
+	@Override
+	public String toString() {
+		return "BeamState [scheduled=" + scheduled + ", decided=" + decided + ", plans=" + plans + ", idleTime="
+				+ idleTime + "]";
+	}
+}
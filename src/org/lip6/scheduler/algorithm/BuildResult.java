@@ -0,0 +1,93 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.lip6.scheduler.Schedule;
+
+/**
+ * The outcome of {@link Scheduler#buildSchedule(Cancellation)}: the last
+ * feasible solution, and whether all the plans have been dispatched or the run
+ * has been stopped before.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class BuildResult {
+
+	/**
+	 * How the run has terminated
+	 */
+	public enum Status {
+		/**
+		 * All the plans have been dispatched
+		 */
+		COMPLETE,
+		/**
+		 * The run has been cancelled through its {@link Cancellation}
+		 */
+		CANCELLED,
+		/**
+		 * The deadline of the run has expired
+		 */
+		DEADLINE_EXPIRED
+	}
+
+	private final Schedule schedule;
+	private final Status status;
+	private final Set<Integer> pendingPlans;
+	private final int plans;
+
+	BuildResult(Schedule schedule, Status status, Set<Integer> pendingPlans, int plans) {
+		this.schedule = schedule;
+		this.status = status;
+		this.pendingPlans = Collections.unmodifiableSet(pendingPlans);
+		this.plans = plans;
+	}
+
+	/**
+	 * @return the last feasible solution found by the run
+	 */
+	public Schedule getSchedule() {
+		return schedule;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return true if the run has been stopped before dispatching all the plans
+	 */
+	public boolean isPartial() {
+		return status != Status.COMPLETE;
+	}
+
+	/**
+	 * @return the IDs of the plans that have not been dispatched, since the run
+	 *         has been stopped. They are neither scheduled nor unscheduled.
+	 */
+	public Set<Integer> getPendingPlans() {
+		return pendingPlans;
+	}
+
+	/**
+	 * @return the number of plans of the scheduler
+	 */
+	public int getPlans() {
+		return plans;
+	}
+
+	/**
+	 * @return the number of plans dispatched, either scheduled or found not
+	 *         schedulable
+	 */
+	public int getProcessedPlans() {
+		return plans - pendingPlans.size();
+	}
+
+	@Override
+	public String toString() {
+		return "BuildResult [status=" + status + ", processed=" + getProcessedPlans() + "/" + plans + "]";
+	}
+}
@@ -0,0 +1,82 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token for stopping a run of the scheduler before it terminates, either on
+ * request ({@link #cancel()}, from any thread) or when a deadline expires. The
+ * scheduler checks the token between the plans it dispatches, between the
+ * trials of ALGORITHM 3 and between the tasks of a plan, and returns the last
+ * feasible solution found so far.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class Cancellation {
+
+	private final long start;
+	/**
+	 * The time allowed to the run in nanoseconds, Long.MAX_VALUE if there is no
+	 * deadline
+	 */
+	private final long timeout;
+	private volatile boolean cancelled;
+
+	private Cancellation(long timeout) {
+		this.start = System.nanoTime();
+		this.timeout = timeout;
+	}
+
+	/**
+	 * @return a token without deadline, that stops the run only when cancelled
+	 */
+	public static Cancellation get() {
+		return new Cancellation(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Get a token whose deadline expires after the given time from now
+	 *
+	 * @param timeout
+	 * @param unit
+	 * @return
+	 */
+	public static Cancellation withTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Timeout < 0");
+		}
+		return new Cancellation(unit.toNanos(timeout));
+	}
+
+	/**
+	 * Ask the run using this token to stop
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return true if the deadline of this token has expired
+	 */
+	public boolean isExpired() {
+		return timeout != Long.MAX_VALUE && System.nanoTime() - start >= timeout;
+	}
+
+	/**
+	 * @return the reason for stopping the run, if it must stop
+	 */
+	Optional<BuildResult.Status> check() {
+		if (cancelled) {
+			return Optional.of(BuildResult.Status.CANCELLED);
+		}
+		if (isExpired()) {
+			return Optional.of(BuildResult.Status.DEADLINE_EXPIRED);
+		}
+		return Optional.empty();
+	}
+}
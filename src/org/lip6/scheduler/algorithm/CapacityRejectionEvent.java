@@ -0,0 +1,49 @@
+package org.lip6.scheduler.algorithm;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted each time a starting time is rejected because
+ * the resource of a task has not enough capacity left. This event can be very
+ * frequent, so it is disabled by default.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+@Name("org.lip6.scheduler.CapacityRejection")
+@Label("Capacity Rejection")
+@Category("Scheduler")
+@Description("A starting time rejected because of the capacity of a resource")
+@StackTrace(false)
+@Enabled(false)
+final class CapacityRejectionEvent extends jdk.jfr.Event {
+
+	@Label("Plan ID")
+	int planID;
+
+	@Label("Task ID")
+	int taskID;
+
+	@Label("Resource ID")
+	int resourceID;
+
+	@Label("Event Time")
+	@Description("The time of the event where the capacity is exceeded")
+	int eventTime;
+
+	@Label("Resource Usage")
+	@Description("The usage of the resource at the event time")
+	int usage;
+
+	@Label("Task Usage")
+	@Description("The usage of the resource required by the task")
+	int required;
+
+	@Label("Maximum Capacity")
+	int capacity;
+}
@@ -89,6 +89,15 @@ public class Event implements Cloneable, Comparable<Event> {
 		resourceUsage.put(resourceID, resourceUsage.getOrDefault(resourceID, 0) + 1);
 	}
 
+	/**
+	 * Decrease the usage of the given resource, down to 0
+	 * 
+	 * @param resourceID
+	 */
+	public void decreaseResourceUsage(int resourceID) {
+		resourceUsage.put(resourceID, Math.max(0, resourceUsage.getOrDefault(resourceID, 0) - 1));
+	}
+
 	public void setResourceCapacities(Map<Integer, Integer> capacities) {
 		resourceUsage.clear();
 		resourceUsage.putAll(capacities);
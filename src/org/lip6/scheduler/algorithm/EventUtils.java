@@ -1,5 +1,9 @@
 package org.lip6.scheduler.algorithm;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
@@ -10,6 +14,7 @@ import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import org.lip6.scheduler.Task;
+import org.lip6.scheduler.TaskSchedule;
 
 /**
  * Utility methods for the Event class
@@ -56,7 +61,11 @@ public class EventUtils {
 	 * @return
 	 */
 	public static Optional<Event> getLastEvent(int We, NavigableSet<Event> events) {
-		return events.stream().filter(x -> x.getTime() == We).findFirst();
+		Event last = events.floor(Event.get(We, Collections.emptySet()));
+		if (last != null && last.getTime() == We) {
+			return Optional.of(last);
+		}
+		return Optional.empty();
 	}
 
 	public static Optional<Event> getNextEvent(Event v, NavigableSet<Event> events) {
@@ -69,14 +78,12 @@ public class EventUtils {
 	}
 
 	public static Optional<Event> getNextEventForResource(int resourceID, Event v, NavigableSet<Event> events) {
-		try {
-			return events.stream()
-					.filter(x -> x.getTime() > v.getTime() && x.taskStartingHere().stream()
-							.filter(t -> t.getResourceID() == resourceID).findAny().isPresent())
-					.min(Event.getComparator());
-		} catch (NoSuchElementException ex) {
-			return Optional.empty();
+		for (Event x : events.tailSet(v, false)) {
+			if (x.taskStartingHere().stream().anyMatch(t -> t.getResourceID() == resourceID)) {
+				return Optional.of(x);
+			}
 		}
+		return Optional.empty();
 	}
 
 	public static Optional<Event> getPreviousEvent(int t, Set<Integer> resourcesIDs, boolean inclusive,
@@ -101,6 +108,13 @@ public class EventUtils {
 	}
 
 	public static TreeSet<Event> cloneSet(TreeSet<Event> events) {
+		if (events instanceof Timeline) {
+			try {
+				return new Timeline((Timeline) events);
+			} catch (CloneNotSupportedException e) {
+				e.printStackTrace();
+			}
+		}
 		TreeSet<Event> E = new TreeSet<>();
 		for (Event x : events) {
 			try {
@@ -112,4 +126,87 @@ public class EventUtils {
 		return E;
 	}
 
+	/**
+	 * Remove the given tasks from the timeline (see
+	 * {@link #release(Collection, NavigableSet)}). Then, the events that contain
+	 * no task and do not change the resource usage of their predecessor are
+	 * removed.
+	 *
+	 * @param removed the schedules of the tasks to remove
+	 * @param events  the timeline
+	 * @param Ws
+	 * @param We
+	 */
+	static void removeFromTimeline(Collection<TaskSchedule> removed, NavigableSet<Event> events, int Ws,
+			int We) {
+		compact(release(removed, events), events, Ws, We);
+	}
+
+	/**
+	 * Remove the given tasks from the timeline: each task is removed from S(e)
+	 * and C(e) of the events where it starts and terminates, and the usage of
+	 * its resource is decreased in the events between them.
+	 *
+	 * @param removed the schedules of the tasks to remove
+	 * @param events  the timeline
+	 * @return the events where the tasks started or terminated
+	 */
+	static Set<Event> release(Collection<TaskSchedule> removed, NavigableSet<Event> events) {
+		Set<Event> candidates = new HashSet<>();
+		for (TaskSchedule ts : removed) {
+			Task t = ts.getTask();
+			Event from = Event.get(ts.getStartingTime(), Collections.emptySet());
+			Event to = Event.get(ts.getStartingTime() + t.getProcessingTime(), Collections.emptySet());
+
+			NavigableSet<Event> range = events.subSet(from, true, to, false);
+			// The usage does not decrease below 0, so the events where it is
+			// already 0 are not changed as the others
+			List<Event> unchanged = new ArrayList<>();
+			for (Event e : range) {
+				if (e.getResourceCapacity(t.getResourceID()) == 0) {
+					unchanged.add(e);
+				}
+				e.decreaseResourceUsage(t.getResourceID());
+			}
+			if (!range.isEmpty()) {
+				Timeline.usageChanged(events, t.getResourceID(), range.first(), range.last());
+			}
+			unchanged.forEach(e -> Timeline.usageChanged(events, t.getResourceID(), e, e));
+			Event start = events.floor(from);
+			if (start != null && start.getTime() == from.getTime()) {
+				start.taskStartingHere().remove(t);
+				candidates.add(start);
+			}
+			Event end = events.floor(to);
+			if (end != null && end.getTime() == to.getTime()) {
+				end.taskTerminatingHere().remove(t);
+				candidates.add(end);
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Remove from the timeline the given events that contain no task and do
+	 * not change the resource usage of their predecessor. The events of
+	 * W<sub>s</sub> and W<sub>e</sub> are never removed.
+	 */
+	static void compact(Collection<Event> candidates, NavigableSet<Event> events, int Ws, int We) {
+		for (Event e : candidates) {
+			if (e.getTime() == Ws || e.getTime() == We || !e.taskStartingHere().isEmpty()
+					|| !e.taskTerminatingHere().isEmpty()) {
+				continue;
+			}
+			Event pred = events.lower(e);
+			if (pred != null && sameResourceUsage(e, pred)) {
+				events.remove(e);
+			}
+		}
+	}
+
+	static boolean sameResourceUsage(Event e, Event f) {
+		Set<Integer> resources = new HashSet<>(e.resourceCapacity().keySet());
+		resources.addAll(f.resourceCapacity().keySet());
+		return resources.stream().allMatch(r -> e.getResourceCapacity(r) == f.getResourceCapacity(r));
+	}
 }
@@ -0,0 +1,111 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import org.lip6.scheduler.Task;
+
+/**
+ * The outcome of {@link Scheduler#checkFeasibility(org.lip6.scheduler.Plan)}:
+ * whether a plan can be scheduled in the current schedule and, if so, the
+ * starting times its tasks would get. Otherwise, the first task that cannot be
+ * placed and the reason.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class Feasibility {
+
+	/**
+	 * Why a task cannot be placed
+	 */
+	public enum Reason {
+		/**
+		 * A predecessor of the task cannot be placed before it
+		 */
+		PRECEDENCE,
+		/**
+		 * The task cannot start at its earliest starting time, because of its
+		 * release time, its due date or the temporal window
+		 */
+		TEMPORAL_WINDOW,
+		/**
+		 * The task could start at its earliest starting time, but its resource
+		 * does not have enough capacity before its due date or the end of the
+		 * temporal window
+		 */
+		CAPACITY,
+		/**
+		 * The synchronized tasks of the plan have no starting time in common
+		 */
+		SYNCHRONIZATION
+	}
+
+	private final int planID;
+	private final Map<Integer, Integer> startingTimes;
+	private final Optional<Task> blockingTask;
+	private final Optional<Reason> reason;
+
+	Feasibility(TentativePlacement placement) {
+		planID = placement.getPlan().getID();
+		startingTimes = Collections.unmodifiableMap(placement.getStartingTimes());
+		blockingTask = placement.getBlockingTask();
+		reason = placement.getReason();
+	}
+
+	/**
+	 * @param planID
+	 * @param startingTimes the starting times of the tasks placed
+	 * @param blockingTask  the first task that cannot be placed, or null
+	 * @param reason        why it cannot be placed, or null
+	 */
+	Feasibility(int planID, Map<Integer, Integer> startingTimes, Task blockingTask, Reason reason) {
+		this.planID = planID;
+		this.startingTimes = Collections.unmodifiableMap(startingTimes);
+		this.blockingTask = Optional.ofNullable(blockingTask);
+		this.reason = Optional.ofNullable(reason);
+	}
+
+	public int getPlanID() {
+		return planID;
+	}
+
+	/**
+	 * @return true if all the tasks of the plan can be placed
+	 */
+	public boolean isFeasible() {
+		return !reason.isPresent();
+	}
+
+	/**
+	 * @return for each task ID (key), its tentative starting time (value). If the
+	 *         plan is not feasible, only the tasks placed before the blocking task
+	 *         are included.
+	 */
+	public Map<Integer, Integer> getStartingTimes() {
+		return startingTimes;
+	}
+
+	/**
+	 * @return the first task that cannot be placed, if any
+	 */
+	public Optional<Task> getBlockingTask() {
+		return blockingTask;
+	}
+
+	/**
+	 * @return why the blocking task cannot be placed, if any
+	 */
+	public Optional<Reason> getReason() {
+		return reason;
+	}
+
+	@Override
+	public String toString() {
+		if (isFeasible()) {
+			return "Feasibility [plan=" + planID + ", feasible, startingTimes=" + startingTimes + "]";
+		}
+		return "Feasibility [plan=" + planID + ", blocked by " + blockingTask.get() + ": " + reason.get() + "]";
+	}
+}
@@ -0,0 +1,74 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+
+/**
+ * The outcome of {@link Scheduler#advanceWindow(int, int)}: what has been
+ * evicted from the scheduler when the temporal window has been moved forward.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class HorizonStep {
+	private final List<Integer> completedPlans;
+	private final List<Plan> expiredPlans;
+	private final int evictedTasks;
+	private final int evictedEvents;
+	private final Schedule schedule;
+
+	HorizonStep(List<Integer> completedPlans, List<Plan> expiredPlans, int evictedTasks, int evictedEvents,
+			Schedule schedule) {
+		this.completedPlans = Collections.unmodifiableList(completedPlans);
+		this.expiredPlans = Collections.unmodifiableList(expiredPlans);
+		this.evictedTasks = evictedTasks;
+		this.evictedEvents = evictedEvents;
+		this.schedule = schedule;
+	}
+
+	/**
+	 * @return the IDs of the scheduled plans whose tasks are all terminated
+	 *         before the new W<sub>s</sub>
+	 */
+	public List<Integer> getCompletedPlans() {
+		return completedPlans;
+	}
+
+	/**
+	 * @return the unscheduled plans that can no longer be scheduled, since the
+	 *         due date of one of their tasks precedes the new W<sub>s</sub>
+	 */
+	public List<Plan> getExpiredPlans() {
+		return expiredPlans;
+	}
+
+	/**
+	 * @return the number of task schedules removed from the schedule
+	 */
+	public int getEvictedTasks() {
+		return evictedTasks;
+	}
+
+	/**
+	 * @return the number of events removed from the timeline
+	 */
+	public int getEvictedEvents() {
+		return evictedEvents;
+	}
+
+	/**
+	 * @return the last feasible solution in the new temporal window
+	 */
+	public Schedule getSchedule() {
+		return schedule;
+	}
+
+	@Override
+	public String toString() {
+		return "HorizonStep [completed=" + completedPlans.size() + ", expired=" + expiredPlans.size()
+				+ ", evictedTasks=" + evictedTasks + ", evictedEvents=" + evictedEvents + "]";
+	}
+}
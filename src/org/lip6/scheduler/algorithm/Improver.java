@@ -0,0 +1,243 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.lip6.scheduler.ExecutableNode;
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+import org.lip6.scheduler.Task;
+import org.lip6.scheduler.TaskSchedule;
+
+/**
+ * The large-neighbourhood search of {@link Scheduler#improve(Cancellation)}.
+ * Each neighbourhood is freed and dispatched again on a copy of the current
+ * run, so the run given to the search is never modified: the copy that
+ * improves it becomes the last run of the scheduler.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class Improver {
+
+	private final Scheduler scheduler;
+
+	private Improver(Scheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	static Improver get(Scheduler scheduler) {
+		return new Improver(scheduler);
+	}
+
+	/**
+	 * Improve the given run until the given token is cancelled, no plan is left
+	 * to schedule, or {@link Scheduler#getImprovementPatience()} consecutive
+	 * steps do not improve it. Each improvement becomes the last run of the
+	 * scheduler and is notified to the listener.
+	 *
+	 * @param current      the run to improve, which is not modified
+	 * @param cancellation the token that stops the search
+	 * @return the best run found
+	 */
+	RunContext improve(RunContext current, Cancellation cancellation) {
+		// The plans linked by precedences keep their order
+		Set<Integer> linked = new HashSet<>();
+		for (Plan p : scheduler.getPlans()) {
+			if (!p.getSuccessors().isEmpty()) {
+				linked.add(p.getID());
+				linked.addAll(p.getSuccessors());
+			}
+		}
+
+		int parallelism = scheduler.getImprovementParallelism();
+		Random random = new Random(0);
+		ExecutorService pool = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+		try {
+			int idle = 0;
+			while (idle < scheduler.getImprovementPatience() && hasCandidates(current)
+					&& !cancellation.check().isPresent()) {
+				List<RunContext> runs = new ArrayList<>();
+				final RunContext from = current;
+				if (pool == null) {
+					runs.add(reinsert(from, new Random(random.nextLong()), linked, cancellation));
+				} else {
+					List<Future<RunContext>> futures = new ArrayList<>();
+					for (int i = 0; i < parallelism; i++) {
+						Random r = new Random(random.nextLong());
+						futures.add(pool.submit(() -> reinsert(from, r, linked, cancellation)));
+					}
+					for (Future<RunContext> f : futures) {
+						runs.add(f.get());
+					}
+				}
+
+				// Keep the best neighbourhood, if it improves the current solution
+				RunContext best = current;
+				for (RunContext run : runs) {
+					if (run != null && compareScheduledPlans(run, best) > 0) {
+						best = run;
+					}
+				}
+				if (best != current) {
+					best.probe = false;
+					current = best;
+					scheduler.lastRun = best;
+					scheduler.notifyListener(best, best.lastFeasibleSolution);
+					idle = 0;
+				} else {
+					idle++;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while improving the schedule", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error while improving the schedule", e.getCause());
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Error while copying the run", e);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * @return <b>true</b> if the given run leaves a plan not scheduled that is
+	 *         not discarded by the pre-screen, and that a neighbourhood may
+	 *         schedule
+	 */
+	private static boolean hasCandidates(RunContext ctx) {
+		return Stream.concat(ctx.unscheduledPlans.stream(), ctx.pendingPlans.stream())
+				.anyMatch(x -> !ctx.screenedPlans.containsKey(x.getID()));
+	}
+
+	/**
+	 * Free a random neighbourhood of the given run, and dispatch again its plans
+	 * and the plans not scheduled by the run.
+	 *
+	 * @param from         the run, which is not modified
+	 * @param random
+	 * @param linked       the IDs of the plans linked by precedences
+	 * @param cancellation the token that stops the search
+	 * @return the new run, or null if it has been stopped or there is nothing to
+	 *         dispatch
+	 * @throws CloneNotSupportedException
+	 */
+	private RunContext reinsert(RunContext from, Random random, Set<Integer> linked, Cancellation cancellation)
+			throws CloneNotSupportedException {
+		RunContext ctx = from.copy();
+		ctx.probe = true;
+		ctx.setCancellation(cancellation);
+		Schedule solution = ctx.lastFeasibleSolution;
+
+		// The plans having a task in a time slice, or on some resources, and
+		// the plans not scheduled that could use the capacity they release
+		Set<Integer> freedIDs = new HashSet<>();
+		Predicate<Task> relevant;
+		if (random.nextBoolean()) {
+			int length = Math.max(1, (ctx.wEnd - ctx.wStart) / 8);
+			int start = ctx.wStart + random.nextInt(Math.max(1, ctx.wEnd - ctx.wStart - length + 1));
+			for (int r : scheduler.resourcesIDs) {
+				solution.tasksOn(r, start, start + length).forEach(x -> freedIDs.add(x.getTask().getPlanID()));
+			}
+			relevant = t -> t.getReleaseTime() < start + length && t.getDueDate() + t.getProcessingTime() > start;
+		} else {
+			List<Integer> resources = new ArrayList<>(scheduler.resourcesIDs);
+			Collections.sort(resources);
+			Collections.shuffle(resources, random);
+			Set<Integer> chosen = new HashSet<>(resources.subList(0, Math.max(1, resources.size() / 4)));
+			solution.taskScheduleView().stream().filter(x -> chosen.contains(x.getResource()))
+					.forEach(x -> freedIDs.add(x.getTask().getPlanID()));
+			relevant = t -> chosen.contains(t.getResourceID());
+		}
+
+		// Together with the scheduled plans that succeed them, which are
+		// dispatched after them
+		Map<Integer, Plan> scheduled = new HashMap<>();
+		ctx.scheduledPlans.forEach(x -> scheduled.put(x.getID(), x));
+		Deque<Integer> toVisit = new ArrayDeque<>(freedIDs);
+		while (!toVisit.isEmpty()) {
+			Plan p = scheduled.get(toVisit.pop());
+			for (int successor : p.getSuccessors()) {
+				if (scheduled.containsKey(successor) && freedIDs.add(successor)) {
+					toVisit.push(successor);
+				}
+			}
+		}
+
+		List<Plan> candidates = new ArrayList<>();
+		List<TaskSchedule> toRemove = new ArrayList<>();
+		for (int planID : freedIDs) {
+			candidates.add(scheduled.get(planID));
+			toRemove.addAll(solution.tasksOf(planID));
+		}
+		// At most as many plans not scheduled as the freed ones (and at least a
+		// few), so that ALGORITHM 3 stays cheap on large groups
+		List<Plan> others = Stream.concat(ctx.unscheduledPlans.stream(), ctx.pendingPlans.stream())
+				.filter(x -> !ctx.screenedPlans.containsKey(x.getID()) && x.getTasks().stream().anyMatch(relevant))
+				.sorted(Comparator.comparingInt(Plan::getID))
+				.collect(Collectors.toList());
+		Collections.shuffle(others, random);
+		candidates.addAll(others.subList(0, Math.min(others.size(), Math.max(4, freedIDs.size()))));
+		if (candidates.size() == freedIDs.size()) {
+			// Nothing new to schedule
+			return null;
+		}
+		solution.unSchedule(toRemove);
+		EventUtils.removeFromTimeline(toRemove, ctx.events, ctx.wStart, ctx.wEnd);
+		candidates.forEach(ctx::forget);
+		candidates.forEach(ctx::setSchedulable);
+
+		List<Plan> sortedPlans = scheduler
+				.sortPlans(candidates.stream().map(x -> (ExecutableNode) x).collect(Collectors.toList()));
+		if (random.nextBoolean()) {
+			// Move a few plans without precedences first
+			List<Plan> movable = sortedPlans.stream().filter(x -> !linked.contains(x.getID()))
+					.collect(Collectors.toList());
+			if (!movable.isEmpty()) {
+				Collections.shuffle(movable, random);
+				List<Plan> first = movable.subList(0, 1 + random.nextInt(Math.min(3, movable.size())));
+				sortedPlans.removeAll(first);
+				sortedPlans.addAll(0, first);
+			}
+		}
+		scheduler.dispatch(ctx, scheduler.cloneSchedule(solution), sortedPlans);
+		return ctx.isStopped() ? null : ctx;
+	}
+
+	/**
+	 * Compare the plans scheduled by two runs, from the highest priority: the
+	 * run that schedules more plans of the highest priority where they differ is
+	 * greater; for the same plans of each priority, the run that schedules more
+	 * plans is greater.
+	 */
+	static int compareScheduledPlans(RunContext a, RunContext b) {
+		int[] pa = a.scheduledPlans.stream().mapToInt(Plan::getPriority).sorted().toArray();
+		int[] pb = b.scheduledPlans.stream().mapToInt(Plan::getPriority).sorted().toArray();
+		for (int i = pa.length - 1, j = pb.length - 1; i >= 0 && j >= 0; i--, j--) {
+			if (pa[i] != pb[j]) {
+				return Integer.compare(pa[i], pb[j]);
+			}
+		}
+		return Integer.compare(pa.length, pb.length);
+	}
+}
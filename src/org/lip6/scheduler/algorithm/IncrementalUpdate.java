@@ -0,0 +1,165 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.lip6.scheduler.ExecutableNode;
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+import org.lip6.scheduler.TaskSchedule;
+
+import etm.core.monitor.EtmPoint;
+
+/**
+ * The changes of the plans of a scheduler after a schedule has been built:
+ * {@link Scheduler#insertPlans(Set)}, {@link Scheduler#cancelPlan(int, boolean)}
+ * and {@link Scheduler#requiresRebuild(Set)}. The plans are placed against, or
+ * removed from, the timeline and the schedule of the given run, which are
+ * modified in place.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class IncrementalUpdate {
+
+	private final Scheduler scheduler;
+
+	private IncrementalUpdate(Scheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	static IncrementalUpdate get(Scheduler scheduler) {
+		return new IncrementalUpdate(scheduler);
+	}
+
+	/**
+	 * Schedule the given plans, which have been added to the scheduler, after
+	 * the plans dispatched by the given run
+	 *
+	 * @param ctx      the run, which must not require a rebuild for the new plans
+	 * @param newPlans
+	 * @return the last feasible solution of the run
+	 */
+	Schedule insertPlans(RunContext ctx, Set<Plan> newPlans) {
+		List<Plan> sortedPlans = Collections.emptyList();
+		if (!newPlans.isEmpty()) {
+			EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SORT_PLANS);
+			sortedPlans = scheduler
+					.sortPlans(newPlans.stream().map(x -> (ExecutableNode) x).collect(Collectors.toList()));
+			SchedulerInstrumentation.collect(point);
+		}
+
+		Map<Plan, Feasibility.Reason> screened = scheduler.screen(sortedPlans, ctx.wStart, ctx.wEnd);
+		Scheduler.reject(ctx, screened);
+		scheduler.dispatch(ctx, scheduler.cloneSchedule(ctx.lastFeasibleSolution), sortedPlans);
+		scheduler.publish(ctx, true);
+		return ctx.lastFeasibleSolution;
+	}
+
+	/**
+	 * Remove the given plan, which has been removed from the scheduler, from the
+	 * given run
+	 *
+	 * @param ctx
+	 * @param p
+	 * @param refill if true, the unscheduled plans having a priority not higher
+	 *               than p are scheduled again
+	 * @return the last feasible solution of the run
+	 */
+	Schedule cancelPlan(RunContext ctx, Plan p, boolean refill) {
+		boolean scheduled = ctx.scheduledPlans.contains(p);
+		ctx.forget(p);
+		if (ctx.lastFeasibleSolution == null || !scheduled) {
+			// The plan has not been scheduled: nothing to release
+			return ctx.lastFeasibleSolution;
+		}
+
+		Schedule solution = scheduler.cloneSchedule(ctx.lastFeasibleSolution);
+		List<TaskSchedule> toRemove = new ArrayList<>(solution.tasksOf(p.getID()));
+		solution.unSchedule(toRemove);
+		EventUtils.removeFromTimeline(toRemove, ctx.events, ctx.wStart, ctx.wEnd);
+		ctx.lastFeasibleSolution = solution;
+		scheduler.notifyListener(ctx, solution);
+
+		if (refill) {
+			// The plans rejected by the pre-screen still cannot be scheduled
+			List<Plan> candidates = ctx.unscheduledPlans.stream()
+					.filter(x -> x.getPriority() <= p.getPriority() && !ctx.screenedPlans.containsKey(x.getID()))
+					.collect(Collectors.toList());
+			if (!candidates.isEmpty()) {
+				ctx.unscheduledPlans.removeAll(candidates);
+				candidates.forEach(ctx::setSchedulable);
+				EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SORT_PLANS);
+				List<Plan> sortedPlans = scheduler.sortPlans(
+						candidates.stream().map(x -> (ExecutableNode) x).collect(Collectors.toList()));
+				SchedulerInstrumentation.collect(point);
+				scheduler.dispatch(ctx, scheduler.cloneSchedule(ctx.lastFeasibleSolution), sortedPlans);
+			}
+		}
+		scheduler.publish(ctx, true);
+		return ctx.lastFeasibleSolution;
+	}
+
+	/**
+	 * Check if inserting the given plans into the given run would give another
+	 * schedule than a rebuild (see {@link Scheduler#requiresRebuild(Set)})
+	 *
+	 * @param ctx
+	 * @param newPlans
+	 * @return
+	 */
+	boolean requiresRebuild(RunContext ctx, Set<Plan> newPlans) {
+		Scheduler.RebuildPolicy rebuildPolicy = scheduler.getRebuildPolicy();
+		if (ctx.lastFeasibleSolution == null || ctx.isStopped() || scheduler.isCalculateOptimalWe()
+				|| rebuildPolicy == Scheduler.RebuildPolicy.ALWAYS) {
+			return true;
+		}
+
+		if (newPlans.stream().anyMatch(x -> x.getSuccessors().stream().anyMatch(scheduler::containsPlan))) {
+			return true;
+		}
+
+		if (rebuildPolicy == Scheduler.RebuildPolicy.ON_PRIORITY_INVERSION) {
+			// A new plan having the priority of a dispatched plan would have been
+			// scheduled together with it by ALGORITHM 3
+			OptionalInt lowest = Stream.concat(ctx.scheduledPlans.stream(), ctx.unscheduledPlans.stream())
+					.mapToInt(Plan::getPriority).min();
+			if (!lowest.isPresent()) {
+				return false;
+			}
+			if (newPlans.stream().anyMatch(x -> x.getPriority() >= lowest.getAsInt())) {
+				return true;
+			}
+			// ALGORITHM 5 sorts by frontier first, so a new plan may precede a
+			// dispatched plan of a later frontier even if its priority is lower
+			Set<Plan> plans = scheduler.getPlans();
+			if (newPlans.isEmpty()
+					|| Stream.concat(plans.stream(), newPlans.stream()).allMatch(x -> x.getSuccessors().isEmpty())) {
+				return false;
+			}
+			Set<Integer> dispatched = Stream.concat(ctx.scheduledPlans.stream(), ctx.unscheduledPlans.stream())
+					.map(Plan::getID).collect(Collectors.toSet());
+			Set<Integer> newIDs = newPlans.stream().map(Plan::getID).collect(Collectors.toSet());
+			List<ExecutableNode> all = Stream.concat(plans.stream(), newPlans.stream()).map(x -> (ExecutableNode) x)
+					.collect(Collectors.toList());
+			List<Plan> sortedPlans = scheduler.sortPlans(all);
+			int lastDispatched = -1;
+			int firstNew = sortedPlans.size();
+			for (int i = 0; i < sortedPlans.size(); i++) {
+				if (dispatched.contains(sortedPlans.get(i).getID())) {
+					lastDispatched = i;
+				} else if (newIDs.contains(sortedPlans.get(i).getID())) {
+					firstNew = Math.min(firstNew, i);
+				}
+			}
+			return firstNew < lastDispatched;
+		}
+		return false;
+	}
+}
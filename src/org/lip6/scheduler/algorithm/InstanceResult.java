@@ -0,0 +1,86 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.Optional;
+
+/**
+ * The outcome of an instance scheduled by a {@link BatchRunner}. Times are
+ * expressed in milliseconds.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class InstanceResult {
+	private final String filename;
+	private final Scenario scenario;
+	private final int plans;
+	private final int scheduledPlans;
+	private final double parseTime;
+	private final double scheduleTime;
+	private final double latency;
+	private final Optional<String> error;
+
+	InstanceResult(String filename, Scenario scenario, int plans, int scheduledPlans, double parseTime,
+			double scheduleTime, double latency, Optional<String> error) {
+		this.filename = filename;
+		this.scenario = scenario;
+		this.plans = plans;
+		this.scheduledPlans = scheduledPlans;
+		this.parseTime = parseTime;
+		this.scheduleTime = scheduleTime;
+		this.latency = latency;
+		this.error = error;
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	public Scenario getScenario() {
+		return scenario;
+	}
+
+	public int getPlans() {
+		return plans;
+	}
+
+	public int getScheduledPlans() {
+		return scheduledPlans;
+	}
+
+	public int getUnscheduledPlans() {
+		return plans - scheduledPlans;
+	}
+
+	public double getParseTime() {
+		return parseTime;
+	}
+
+	public double getScheduleTime() {
+		return scheduleTime;
+	}
+
+	/**
+	 * @return the time elapsed between the admission of the instance in the
+	 *         batch and the end of its scheduling, waiting times included
+	 */
+	public double getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return the reason why the instance could not be scheduled, if any
+	 */
+	public Optional<String> getError() {
+		return error;
+	}
+
+	public boolean isFailed() {
+		return error.isPresent();
+	}
+
+	@Override
+	public String toString() {
+		return filename + ": " + (error.isPresent() ? "FAILED (" + error.get() + ")"
+				: "scheduled=" + scheduledPlans + "/" + plans + ", latency=" + latency + "ms");
+	}
+}
@@ -0,0 +1,242 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+import org.lip6.scheduler.Task;
+import org.lip6.scheduler.TaskSchedule;
+
+/**
+ * The placement of the plans used by {@link Scheduler.Engine#LIST}: each task
+ * is placed once, at the earliest starting time where its resource has enough
+ * capacity, and the plans are never tried twice nor copied.<br/>
+ * <br/>
+ * For each resource, the usage is a step function kept in a sorted map (the
+ * number of tasks executed from each time instant to the next one), so that
+ * the earliest fit of a task is found by a single forward walk from its
+ * initial starting time, in O(log n) plus the steps skipped. The constraints
+ * are the ones of ALGORITHM 2 and ALGORITHM 4: the predecessors of a task are
+ * placed before it, {@link Scheduler#checkConstraints(Task, int, int, int)}
+ * holds for its starting time, and the synchronized tasks of a plan start at
+ * the same time. As in the timeline of ALGORITHM 4, a task fits if the number
+ * of tasks executed on its resource plus its usage does not exceed the
+ * capacity.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class ListScheduler {
+
+	private final int maxResourceCapacity;
+	private final int wStart, wEnd;
+	/**
+	 * For each resource (key), the number of tasks executed on it from each time
+	 * instant to the next one (value)
+	 */
+	private final Map<Integer, TreeMap<Integer, Integer>> usage;
+
+	private ListScheduler(int maxResourceCapacity, int wStart, int wEnd) {
+		this.maxResourceCapacity = maxResourceCapacity;
+		this.wStart = wStart;
+		this.wEnd = wEnd;
+		usage = new HashMap<>();
+	}
+
+	static ListScheduler get(int maxResourceCapacity, int wStart, int wEnd) {
+		return new ListScheduler(maxResourceCapacity, wStart, wEnd);
+	}
+
+	/**
+	 * Place all the tasks of the given plan and add them to the given solution,
+	 * or none of them
+	 *
+	 * @param pk
+	 * @param s
+	 * @return true if the plan has been placed
+	 */
+	boolean place(Plan pk, Schedule s) {
+		Map<Task, Integer> startingTimes = new HashMap<>();
+		List<Task> placed = new ArrayList<>();
+		List<Task> syncTasks = pk.hasSyncTask() ? pk.getSyncTasks() : Collections.emptyList();
+		boolean feasible = syncTasks.isEmpty() || placeSyncTasks(syncTasks, startingTimes, placed);
+
+		Map<Integer, Integer> completions = new HashMap<>();
+		placed.forEach(t -> completions.put(t.getID(), startingTimes.get(t) + t.getProcessingTime()));
+		for (Task t : pk.getTasks()) {
+			if (!feasible) {
+				break;
+			}
+			if (syncTasks.contains(t)) {
+				continue;
+			}
+			// The predecessors must have been placed, as in ALGORITHM 2
+			int sk = Math.max(t.getReleaseTime(), wStart);
+			for (int p : t.getPredecessors()) {
+				Integer c = completions.get(p);
+				if (c == null) {
+					feasible = false;
+					break;
+				}
+				sk = Math.max(sk, c);
+			}
+			int startingTime = feasible ? earliestFit(t, sk) : -1;
+			if (startingTime < 0) {
+				feasible = false;
+				break;
+			}
+			reserve(t, startingTime, 1);
+			startingTimes.put(t, startingTime);
+			placed.add(t);
+			completions.put(t.getID(), startingTime + t.getProcessingTime());
+		}
+
+		if (!feasible) {
+			placed.forEach(t -> reserve(t, startingTimes.get(t), -1));
+			return false;
+		}
+		placed.forEach(t -> s.addTask(startingTimes.get(t), t));
+		return true;
+	}
+
+	/**
+	 * Place the synchronized tasks at the earliest time instant where all of
+	 * them fit
+	 */
+	private boolean placeSyncTasks(List<Task> syncTasks, Map<Task, Integer> startingTimes, List<Task> placed) {
+		int sk = wStart;
+		for (Task t : syncTasks) {
+			sk = Math.max(sk, t.getReleaseTime());
+		}
+		while (true) {
+			// Reserve the tasks one after the other, so that the tasks sharing a
+			// resource see each other. If one does not fit at sk, try again from
+			// its earliest fit, which is later.
+			int next = sk;
+			for (Task t : syncTasks) {
+				next = earliestFit(t, sk);
+				if (next != sk) {
+					break;
+				}
+				reserve(t, sk, 1);
+				startingTimes.put(t, sk);
+				placed.add(t);
+			}
+			if (next == sk) {
+				return true;
+			}
+			placed.forEach(t -> reserve(t, startingTimes.get(t), -1));
+			placed.clear();
+			if (next < 0) {
+				return false;
+			}
+			sk = next;
+		}
+	}
+
+	/**
+	 * Get the earliest starting time, not before sk, where the given task fits
+	 * and satisfies its constraints. Since sk is not before r<sub>k</sub> and
+	 * W<sub>s</sub>, {@link Scheduler#checkConstraints(Task, int, int, int)}
+	 * holds for a starting time if it is not after the latest one computed here.
+	 *
+	 * @return the starting time, or -1 if there is none
+	 */
+	private int earliestFit(Task t, int sk) {
+		int latest = Math.min(t.getDueDate(), wEnd - t.getProcessingTime());
+		if (sk > latest) {
+			return -1;
+		}
+		int allowed = maxResourceCapacity - t.getResourceUsage();
+		TreeMap<Integer, Integer> steps = steps(t.getResourceID());
+		Iterator<Map.Entry<Integer, Integer>> it = steps.tailMap(steps.floorKey(sk), true).entrySet().iterator();
+
+		int s = sk;
+		Map.Entry<Integer, Integer> step = it.next();
+		while (true) {
+			Map.Entry<Integer, Integer> next = it.hasNext() ? it.next() : null;
+			int end = next == null ? Integer.MAX_VALUE : next.getKey();
+			if (step.getValue() > allowed) {
+				// The task cannot be executed in this step: start after it
+				s = end;
+				if (next == null || s > latest) {
+					return -1;
+				}
+			} else if (next == null || end >= s + t.getProcessingTime()) {
+				return s;
+			}
+			step = next;
+		}
+	}
+
+	/**
+	 * Add the given number of tasks (1 or -1) to the usage of the resource of t
+	 * while it is executed
+	 */
+	private void reserve(Task t, int startingTime, int tasks) {
+		int end = startingTime + t.getProcessingTime();
+		if (end == startingTime) {
+			return;
+		}
+		TreeMap<Integer, Integer> steps = steps(t.getResourceID());
+		steps.putIfAbsent(startingTime, steps.floorEntry(startingTime).getValue());
+		steps.putIfAbsent(end, steps.floorEntry(end).getValue());
+		for (Map.Entry<Integer, Integer> step : steps.subMap(startingTime, true, end, false).entrySet()) {
+			step.setValue(step.getValue() + tasks);
+		}
+	}
+
+	private TreeMap<Integer, Integer> steps(int resourceID) {
+		return usage.computeIfAbsent(resourceID, k -> {
+			TreeMap<Integer, Integer> steps = new TreeMap<>();
+			steps.put(wStart, 0);
+			return steps;
+		});
+	}
+
+	/**
+	 * Replace the events of the given timeline with the events of the given
+	 * solution: one event for each time instant where a task starts or
+	 * terminates, plus the events for W<sub>s</sub> and W<sub>e</sub>.
+	 *
+	 * @param s
+	 * @param events
+	 * @param resourcesIDs
+	 */
+	void buildTimeline(Schedule s, Timeline events, Set<Integer> resourcesIDs) {
+		NavigableMap<Integer, Event> byTime = new TreeMap<>();
+		byTime.put(wStart, Event.get(wStart, resourcesIDs));
+		byTime.put(wEnd, Event.get(wEnd, resourcesIDs));
+		Map<Integer, Map<Integer, Integer>> deltas = new HashMap<>();
+		for (TaskSchedule ts : s.taskScheduleView()) {
+			Task t = ts.getTask();
+			int start = ts.getStartingTime();
+			int end = start + t.getProcessingTime();
+			byTime.computeIfAbsent(start, k -> Event.get(k, resourcesIDs)).addToS(t);
+			byTime.computeIfAbsent(end, k -> Event.get(k, resourcesIDs)).addToC(t);
+			if (end > start) {
+				deltas.computeIfAbsent(start, k -> new HashMap<>()).merge(t.getResourceID(), 1, Integer::sum);
+				deltas.computeIfAbsent(end, k -> new HashMap<>()).merge(t.getResourceID(), -1, Integer::sum);
+			}
+		}
+
+		Map<Integer, Integer> current = new HashMap<>();
+		resourcesIDs.forEach(r -> current.put(r, 0));
+		for (Event e : byTime.values()) {
+			Map<Integer, Integer> delta = deltas.get(e.getTime());
+			if (delta != null) {
+				delta.forEach((r, d) -> current.merge(r, d, Integer::sum));
+			}
+			e.setResourceCapacities(current);
+		}
+		events.load(byTime.values());
+	}
+}
@@ -0,0 +1,64 @@
+package org.lip6.scheduler.algorithm;
+
+/**
+ * The aggregated execution times of a phase of the scheduler, measured by
+ * {@link SchedulerInstrumentation}. Times are expressed in milliseconds.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class PhaseStatistics {
+	private final String name;
+	private final long measurements;
+	private final double total;
+	private final double min;
+	private final double max;
+
+	PhaseStatistics(String name, long measurements, double total, double min, double max) {
+		this.name = name;
+		this.measurements = measurements;
+		this.total = total;
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * Merge two statistics of the same phase, measured in different contexts
+	 * (for example, a task scheduled as part of a single plan or of a set of
+	 * plans having the same priority).
+	 */
+	PhaseStatistics merge(PhaseStatistics other) {
+		return new PhaseStatistics(name, measurements + other.measurements, total + other.total,
+				Math.min(min, other.min), Math.max(max, other.max));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getMeasurements() {
+		return measurements;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getAverage() {
+		return measurements == 0 ? 0 : total / measurements;
+	}
+
+	@Override
+	public String toString() {
+		return name + " [measurements=" + measurements + ", total=" + total + "ms, min=" + min + "ms, max=" + max
+				+ "ms, average=" + getAverage() + "ms]";
+	}
+}
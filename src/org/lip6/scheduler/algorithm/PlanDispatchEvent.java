@@ -0,0 +1,38 @@
+package org.lip6.scheduler.algorithm;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted each time {@link Scheduler#buildSchedule()}
+ * dispatches a plan, or a group of plans having the same priority value. Its
+ * duration is the time spent scheduling the dispatched plans.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+@Name("org.lip6.scheduler.PlanDispatch")
+@Label("Plan Dispatch")
+@Category("Scheduler")
+@Description("A plan, or a group of plans with the same priority, dispatched by the scheduler")
+@StackTrace(false)
+final class PlanDispatchEvent extends jdk.jfr.Event {
+
+	@Label("Plan ID")
+	@Description("The first dispatched plan")
+	int planID;
+
+	@Label("Priority")
+	int priority;
+
+	@Label("Group Size")
+	@Description("The number of plans dispatched together, having the same priority")
+	int groupSize;
+
+	@Label("Scheduled Plans")
+	@Description("The number of dispatched plans that have been scheduled")
+	int scheduledPlans;
+}
@@ -0,0 +1,108 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Task;
+
+/**
+ * The pre-screen of the plans (see {@link Scheduler#setPreScreen(boolean)}):
+ * a plan is rejected before its placement only if ALGORITHM 2 cannot schedule
+ * it, whatever the usage of the resources.<br/>
+ * <br/>
+ * The tasks are visited in the order of ALGORITHM 2, propagating the earliest
+ * starting time of each task: the maximum of r<sub>k</sub>, W<sub>s</sub> and
+ * the earliest completion of its predecessors. A plan is rejected if a task
+ * has no starting time that satisfies
+ * {@link Scheduler#checkConstraints(Task, int, int, int)} or uses more than
+ * the capacity of its resource, if its synchronized tasks have no starting
+ * time in common, or if a task cannot start after its predecessors before its
+ * due date or the end of the temporal window. The cost is O(tasks +
+ * precedences) for each plan.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class PlanScreen {
+
+	private PlanScreen() {
+	}
+
+	/**
+	 * Check whether the given plan can never be scheduled in the given temporal
+	 * window
+	 *
+	 * @param pk
+	 * @param maxResourceCapacity
+	 * @param wStart
+	 * @param wEnd
+	 * @return the reason why the plan can never be scheduled, or empty if it
+	 *         may be scheduled
+	 */
+	static Optional<Feasibility.Reason> screen(Plan pk, int maxResourceCapacity, int wStart, int wEnd) {
+		List<Task> tasks = pk.getTasks();
+		for (Task t : tasks) {
+			if (earliest(t, wStart) > latest(t, wEnd)) {
+				return Optional.of(Feasibility.Reason.TEMPORAL_WINDOW);
+			}
+			if (t.getResourceUsage() > maxResourceCapacity) {
+				return Optional.of(Feasibility.Reason.CAPACITY);
+			}
+		}
+
+		// The synchronized tasks start together, before the other tasks and
+		// regardless of their predecessors
+		Map<Integer, Integer> completions = new HashMap<>();
+		Set<Integer> syncIDs = new HashSet<>();
+		if (pk.hasSyncTask()) {
+			List<Task> syncTasks = pk.getSyncTasks();
+			int from = Integer.MIN_VALUE;
+			int to = Integer.MAX_VALUE;
+			for (Task t : syncTasks) {
+				from = Math.max(from, earliest(t, wStart));
+				to = Math.min(to, latest(t, wEnd));
+			}
+			if (from > to) {
+				return Optional.of(Feasibility.Reason.SYNCHRONIZATION);
+			}
+			for (Task t : syncTasks) {
+				syncIDs.add(t.getID());
+				completions.put(t.getID(), from + t.getProcessingTime());
+			}
+		}
+
+		// The predecessors of each other task must precede it in the order of
+		// ALGORITHM 2
+		for (Task t : tasks) {
+			if (syncIDs.contains(t.getID())) {
+				continue;
+			}
+			int sk = earliest(t, wStart);
+			for (int p : t.getPredecessors()) {
+				Integer c = completions.get(p);
+				if (c == null) {
+					return Optional.of(Feasibility.Reason.PRECEDENCE);
+				}
+				sk = Math.max(sk, c);
+			}
+			if (sk > latest(t, wEnd)) {
+				return Optional.of(Feasibility.Reason.PRECEDENCE);
+			}
+			completions.put(t.getID(), sk + t.getProcessingTime());
+		}
+		return Optional.empty();
+	}
+
+	private static int earliest(Task t, int wStart) {
+		return Math.max(t.getReleaseTime(), wStart);
+	}
+
+	private static int latest(Task t, int wEnd) {
+		return Math.min(t.getDueDate(), wEnd - t.getProcessingTime());
+	}
+}
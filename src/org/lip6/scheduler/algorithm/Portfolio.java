@@ -0,0 +1,110 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.lip6.scheduler.ExecutableNode;
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+
+import etm.core.monitor.EtmPoint;
+
+/**
+ * The portfolio of {@link Scheduler#buildPortfolio(List)}: one run of
+ * ALGORITHM 1 for each ordering of the plans, each with its own context, run
+ * concurrently. The runs are compared as in
+ * {@link Scheduler#improve(Cancellation)}.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class Portfolio {
+
+	private final Scheduler scheduler;
+
+	private Portfolio(Scheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	static Portfolio get(Scheduler scheduler) {
+		return new Portfolio(scheduler);
+	}
+
+	/**
+	 * Run the variants of the given orderings. Each variant better than the
+	 * ones terminated before becomes at once the last run of the scheduler and
+	 * is notified to the listener.
+	 *
+	 * @param orderings the orderings of the variants, not empty
+	 * @return the best run, the first one in the list among the equivalent
+	 *         ones
+	 */
+	RunContext build(List<Scheduler.PlanOrdering> orderings) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.BUILD_PORTFOLIO);
+		int wStart = scheduler.getwStart();
+		int wEnd = scheduler.getwEnd();
+		scheduler.snapshot = ScheduleSnapshot.get(Schedule.get(wStart, wEnd), Collections.emptySet(),
+				scheduler.getPlans().size(), false);
+		List<ExecutableNode> nodes = scheduler.getPlans().stream().map(x -> (ExecutableNode) x)
+				.collect(Collectors.toList());
+		Map<Plan, Feasibility.Reason> screened = scheduler.screen(new ArrayList<>(scheduler.getPlans()), wStart,
+				wEnd);
+
+		ExecutorService pool = Executors
+				.newFixedThreadPool(Math.min(orderings.size(), Runtime.getRuntime().availableProcessors()));
+		CompletionService<RunContext> completion = new ExecutorCompletionService<>(pool);
+		Map<Future<RunContext>, Integer> variants = new HashMap<>();
+		RunContext best = null;
+		int bestVariant = -1;
+		try {
+			for (int i = 0; i < orderings.size(); i++) {
+				Comparator<Plan> comparator = scheduler.planComparator(orderings.get(i), i);
+				variants.put(completion.submit(() -> {
+					RunContext ctx = RunContext.get(wStart, wEnd, scheduler.resourcesIDs);
+					ctx.probe = true;
+					Scheduler.reject(ctx, screened);
+					scheduler.buildSchedule(ctx,
+							nodes.isEmpty() ? Collections.emptyList() : Scheduler.sortPlans(nodes, comparator));
+					return ctx;
+				}), i);
+			}
+
+			for (int k = 0; k < orderings.size(); k++) {
+				Future<RunContext> f = completion.take();
+				int variant = variants.get(f);
+				RunContext run = f.get();
+				int cmp = best == null ? 1 : Improver.compareScheduledPlans(run, best);
+				if (cmp > 0 || (cmp == 0 && variant < bestVariant)) {
+					best = run;
+					bestVariant = variant;
+					best.probe = false;
+					if (cmp > 0) {
+						// Make the better solution usable at once
+						scheduler.lastRun = best;
+						scheduler.notifyListener(best, best.lastFeasibleSolution);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while building the portfolio", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error while building a variant of the portfolio", e.getCause());
+		} finally {
+			pool.shutdownNow();
+			SchedulerInstrumentation.collect(point);
+		}
+		return best;
+	}
+}
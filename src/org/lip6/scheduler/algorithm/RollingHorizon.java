@@ -0,0 +1,140 @@
+package org.lip6.scheduler.algorithm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.commons.csv.CSVFormat;
+import org.lip6.scheduler.ExecutableNode;
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+import org.lip6.scheduler.TaskSchedule;
+
+import etm.core.monitor.EtmPoint;
+
+/**
+ * The rolling horizon of {@link Scheduler#advanceWindow(int, int)}: the
+ * temporal window of a run is moved forward, what lies before it is evicted
+ * from the run and from the scheduler, and the unscheduled plans are
+ * dispatched again in the new window.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class RollingHorizon {
+
+	private final Scheduler scheduler;
+
+	private RollingHorizon(Scheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	static RollingHorizon get(Scheduler scheduler) {
+		return new RollingHorizon(scheduler);
+	}
+
+	/**
+	 * Move the temporal window of the given run, and of the scheduler, to
+	 * [newWStart, newWEnd]
+	 *
+	 * @param ctx       the run, which has built a schedule. It is modified in
+	 *                  place.
+	 * @param newWStart not lower than the W<sub>s</sub> of the run
+	 * @param newWEnd   not lower than the W<sub>e</sub> of the run, and greater
+	 *                  than newWStart
+	 * @return what has been evicted
+	 * @throws IOException if the evicted task schedules cannot be written to the
+	 *                     spill
+	 */
+	HorizonStep advance(RunContext ctx, int newWStart, int newWEnd) throws IOException {
+		Timeline events = ctx.events;
+
+		// The new events for Ws and We carry the resource usage of the
+		// events that precede them
+		Event ws = Event.get(newWStart, scheduler.resourcesIDs);
+		Event floor = events.floor(ws);
+		if (floor.getTime() != newWStart) {
+			ws.setResourceCapacities(floor.resourceCapacity());
+			events.add(ws);
+		}
+		Event oldWe = events.floor(Event.get(ctx.wEnd, Collections.emptySet()));
+		Event we = Event.get(newWEnd, scheduler.resourcesIDs);
+		floor = events.floor(we);
+		if (floor.getTime() != newWEnd) {
+			we.setResourceCapacities(floor.resourceCapacity());
+			events.add(we);
+		}
+
+		// Evict the past events
+		Event first = Event.get(newWStart, Collections.emptySet());
+		int evictedEvents = events.headSet(first, false).size();
+		ctx.events.removeBefore(first);
+
+		// Keep the task schedules that terminate after newWStart
+		Schedule solution = Schedule.get(newWStart, newWEnd);
+		List<TaskSchedule> evicted = new ArrayList<>();
+		for (TaskSchedule ts : ctx.lastFeasibleSolution.taskScheduleView()) {
+			if (ts.getStartingTime() + ts.getTask().getProcessingTime() <= newWStart) {
+				evicted.add(ts);
+			} else {
+				solution.addTask(ts.getStartingTime(), ts.getTask());
+			}
+		}
+		if (scheduler.spill.isPresent()) {
+			for (TaskSchedule ts : evicted) {
+				CSVFormat.EXCEL.printRecord(scheduler.spill.get(), ts.getTask().getPlanID(), ts.getTask().getID(),
+						ts.getResource(), ts.getStartingTime(), ts.getTask().getProcessingTime());
+			}
+		}
+
+		// Evict the completed plans, and the unscheduled plans that cannot be
+		// scheduled anymore
+		List<Integer> completedPlans = new ArrayList<>();
+		for (Plan p : new ArrayList<>(ctx.scheduledPlans)) {
+			if (solution.tasksOf(p.getID()).isEmpty()) {
+				completedPlans.add(p.getID());
+				scheduler.removePlan(p);
+				ctx.forget(p);
+			}
+		}
+		List<Plan> expiredPlans = new ArrayList<>();
+		for (Plan p : new ArrayList<>(ctx.unscheduledPlans)) {
+			if (p.getTasks().stream().anyMatch(t -> t.getDueDate() < newWStart)) {
+				expiredPlans.add(p);
+				scheduler.removePlan(p);
+				ctx.forget(p);
+			}
+		}
+
+		// Move the window
+		scheduler.wStart = newWStart;
+		scheduler.wEnd = newWEnd;
+		ctx.wStart = newWStart;
+		ctx.wEnd = newWEnd;
+		EventUtils.compact(Collections.singleton(oldWe), events, newWStart, newWEnd);
+		ctx.lastFeasibleSolution = solution;
+
+		// Carry the unscheduled plans forward into the new window
+		List<Plan> carried = new ArrayList<>(ctx.unscheduledPlans);
+		if (!carried.isEmpty()) {
+			ctx.unscheduledPlans.clear();
+			ctx.screenedPlans.clear();
+			carried.forEach(ctx::setSchedulable);
+			EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SORT_PLANS);
+			List<Plan> sortedPlans = scheduler
+					.sortPlans(carried.stream().map(x -> (ExecutableNode) x).collect(Collectors.toList()));
+			SchedulerInstrumentation.collect(point);
+			// The new window may let the plans rejected by the pre-screen fit
+			Map<Plan, Feasibility.Reason> screened = scheduler.screen(sortedPlans, newWStart, newWEnd);
+			Scheduler.reject(ctx, screened);
+			scheduler.dispatch(ctx, scheduler.cloneSchedule(solution), sortedPlans);
+		}
+
+		scheduler.publish(ctx, true);
+		return new HorizonStep(completedPlans, expiredPlans, evicted.size(), evictedEvents,
+				ctx.lastFeasibleSolution);
+	}
+}
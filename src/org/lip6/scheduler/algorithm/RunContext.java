@@ -0,0 +1,247 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+
+/**
+ * The mutable state of a single run of the scheduler. Each call of
+ * {@link Scheduler#buildSchedule()} owns its own context, so that the plans
+ * (which are never modified by the scheduler) can be shared between repeated
+ * runs and between runs executed concurrently by different threads.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class RunContext {
+
+	/**
+	 * The temporal window of this run. It is moved forward by
+	 * {@link Scheduler#advanceWindow(int, int)}.
+	 */
+	int wStart, wEnd;
+	/**
+	 * If true, this run is a probe of the search for the optimal
+	 * W<sub>e</sub>, and its solutions are not notified to the listener
+	 */
+	boolean probe;
+	/**
+	 * The timeline of this run
+	 */
+	final Timeline events;
+	/**
+	 * The set of scheduled plans.
+	 */
+	final Set<Plan> scheduledPlans;
+	/**
+	 * The set of unscheduled plans.
+	 */
+	final Set<Plan> unscheduledPlans;
+	/**
+	 * The IDs of the plans found not schedulable during this run. Once a plan
+	 * fails, it is not tried again in the same run.
+	 */
+	private final Set<Integer> unschedulablePlans;
+	/**
+	 * For each plan (key), the idle time of its last successful trial in
+	 * ALGORITHM 3 (value)
+	 */
+	private final Map<Integer, Integer> trialIdleTimes;
+	/**
+	 * For each plan (key), the number of its tasks placed by the last attempt of
+	 * scheduling it (value)
+	 */
+	private final Map<Integer, Integer> placedTasks;
+	/**
+	 * The last feasible solution found in this run
+	 */
+	Schedule lastFeasibleSolution;
+	/**
+	 * The aggregate of the usage of the timeline, built on demand by
+	 * {@link Scheduler#getUtilization()}
+	 */
+	Utilization utilization;
+	/**
+	 * The token checked by this run
+	 */
+	private Cancellation cancellation;
+	/**
+	 * The reason why this run has been stopped, if it has
+	 */
+	private Optional<BuildResult.Status> stop;
+	/**
+	 * The plans left to dispatch when this run has been stopped
+	 */
+	final Set<Plan> pendingPlans;
+	/**
+	 * For each plan rejected by the pre-screen (key), the reason (value). These
+	 * plans are also unscheduled.
+	 */
+	final Map<Integer, Feasibility.Reason> screenedPlans;
+
+	private RunContext(int wStart, int wEnd, Timeline events) {
+		this.wStart = wStart;
+		this.wEnd = wEnd;
+		this.events = events;
+		scheduledPlans = new HashSet<>();
+		unscheduledPlans = new HashSet<>();
+		unschedulablePlans = new HashSet<>();
+		trialIdleTimes = new HashMap<>();
+		placedTasks = new HashMap<>();
+		cancellation = Cancellation.get();
+		stop = Optional.empty();
+		pendingPlans = new HashSet<>();
+		screenedPlans = new HashMap<>();
+	}
+
+	/**
+	 * Get a new context, whose timeline contains only the events for
+	 * W<sub>s</sub> and W<sub>e</sub>
+	 *
+	 * @param wStart
+	 * @param wEnd
+	 * @param resourcesIDs
+	 * @return
+	 */
+	static RunContext get(int wStart, int wEnd, Set<Integer> resourcesIDs) {
+		RunContext ctx = new RunContext(wStart, wEnd, new Timeline());
+		ctx.events.add(Event.get(wStart, resourcesIDs));
+		ctx.events.add(Event.get(wEnd, resourcesIDs));
+		return ctx;
+	}
+
+	/**
+	 * Get a copy of this run, whose timeline, sets of plans and last feasible
+	 * solution can be modified without affecting this run. The copy checks the
+	 * same token, and is not stopped.
+	 *
+	 * @return
+	 * @throws CloneNotSupportedException
+	 */
+	RunContext copy() throws CloneNotSupportedException {
+		RunContext ctx = new RunContext(wStart, wEnd, new Timeline(events));
+		ctx.probe = probe;
+		ctx.scheduledPlans.addAll(scheduledPlans);
+		ctx.unscheduledPlans.addAll(unscheduledPlans);
+		ctx.unschedulablePlans.addAll(unschedulablePlans);
+		ctx.trialIdleTimes.putAll(trialIdleTimes);
+		ctx.placedTasks.putAll(placedTasks);
+		ctx.pendingPlans.addAll(pendingPlans);
+		ctx.screenedPlans.putAll(screenedPlans);
+		ctx.cancellation = cancellation;
+		if (lastFeasibleSolution != null) {
+			ctx.lastFeasibleSolution = (Schedule) lastFeasibleSolution.clone();
+		}
+		return ctx;
+	}
+
+	boolean isSchedulable(Plan p) {
+		return !unschedulablePlans.contains(p.getID());
+	}
+
+	void setUnschedulable(Plan p) {
+		unschedulablePlans.add(p.getID());
+	}
+
+	/**
+	 * Let a plan found not schedulable be tried again
+	 */
+	void setSchedulable(Plan p) {
+		unschedulablePlans.remove(p.getID());
+	}
+
+	/**
+	 * Discard the state kept for a plan that leaves the scheduler
+	 */
+	void forget(Plan p) {
+		scheduledPlans.remove(p);
+		unscheduledPlans.remove(p);
+		unschedulablePlans.remove(p.getID());
+		trialIdleTimes.remove(p.getID());
+		placedTasks.remove(p.getID());
+		pendingPlans.remove(p);
+		screenedPlans.remove(p.getID());
+	}
+
+	void setTrialIdleTime(Plan p, int idleTime) {
+		trialIdleTimes.put(p.getID(), idleTime);
+	}
+
+	/**
+	 * @return for each plan ID, the idle time of its last successful trial
+	 */
+	Map<Integer, Integer> trialIdleTimes() {
+		return Collections.unmodifiableMap(trialIdleTimes);
+	}
+
+	/**
+	 * Start counting the tasks placed for the given plan
+	 */
+	void resetPlacedTasks(Plan p) {
+		placedTasks.put(p.getID(), 0);
+	}
+
+	void taskPlaced(Plan p) {
+		placedTasks.merge(p.getID(), 1, Integer::sum);
+	}
+
+	/**
+	 * @return the number of tasks of the given plan placed by the last attempt
+	 *         of scheduling it
+	 */
+	int getPlacedTasks(Plan p) {
+		return placedTasks.getOrDefault(p.getID(), 0);
+	}
+
+	Cancellation getCancellation() {
+		return cancellation;
+	}
+
+	/**
+	 * Check the given token from now on. The run is no longer stopped, but the
+	 * plans left pending by a previous stop are kept.
+	 */
+	void setCancellation(Cancellation cancellation) {
+		this.cancellation = cancellation;
+		stop = Optional.empty();
+	}
+
+	/**
+	 * Check whether the run must stop. Once stopped, the run remains stopped.
+	 *
+	 * @return true if the run must stop
+	 */
+	boolean shouldStop() {
+		if (!stop.isPresent()) {
+			stop = cancellation.check();
+		}
+		return stop.isPresent();
+	}
+
+	/**
+	 * @return true if the run has been stopped by a previous call of
+	 *         {@link #shouldStop()}
+	 */
+	boolean isStopped() {
+		return stop.isPresent();
+	}
+
+	/**
+	 * Stop the run for the given reason, without checking the token
+	 */
+	void stop(BuildResult.Status status) {
+		if (!stop.isPresent() && status != BuildResult.Status.COMPLETE) {
+			stop = Optional.of(status);
+		}
+	}
+
+	BuildResult.Status getStatus() {
+		return stop.orElse(BuildResult.Status.COMPLETE);
+	}
+}
@@ -0,0 +1,86 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.lip6.scheduler.utils.Utils;
+
+/**
+ * A what-if scenario: the parameters of a scheduler (maximum resource capacity
+ * and temporal window) to be evaluated by a {@link ScenarioSweep}.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class Scenario {
+	private final int maxResourceCapacity;
+	private final int wStart;
+	private final int wEnd;
+
+	private Scenario(int maxResourceCapacity, int wStart, int wEnd) {
+		this.maxResourceCapacity = maxResourceCapacity;
+		this.wStart = wStart;
+		this.wEnd = wEnd;
+	}
+
+	/**
+	 * Static factory method for Scenario
+	 * 
+	 * @param maxResourceCapacity the maximum capacity of all the resources
+	 * @param wStart              the starting time of the temporal window
+	 * @param wEnd                the final time of the temporal window
+	 * @return
+	 */
+	public static Scenario get(int maxResourceCapacity, int wStart, int wEnd) {
+		Utils.requireValidBounds(maxResourceCapacity, 1, Integer.MAX_VALUE,
+				"Maximum resource capacity must be a positive integer value.");
+		if (wEnd <= wStart) {
+			throw new IllegalArgumentException(
+					"Invalid temporal window [" + Integer.toString(wStart) + "," + Integer.toString(wEnd) + "]");
+		}
+		return new Scenario(maxResourceCapacity, wStart, wEnd);
+	}
+
+	/**
+	 * Get all the combinations of the given values. The combinations whose
+	 * temporal window is not valid (W<sub>e</sub> &le; W<sub>s</sub>) are
+	 * skipped.
+	 * 
+	 * @param capacities the values of the maximum resource capacity
+	 * @param wStarts    the values of W<sub>s</sub>
+	 * @param wEnds      the values of W<sub>e</sub>
+	 * @return
+	 */
+	public static List<Scenario> grid(Collection<Integer> capacities, Collection<Integer> wStarts,
+			Collection<Integer> wEnds) {
+		List<Scenario> scenarios = new ArrayList<>();
+		for (int capacity : capacities) {
+			for (int ws : wStarts) {
+				for (int we : wEnds) {
+					if (we > ws) {
+						scenarios.add(Scenario.get(capacity, ws, we));
+					}
+				}
+			}
+		}
+		return scenarios;
+	}
+
+	public int getMaxResourceCapacity() {
+		return maxResourceCapacity;
+	}
+
+	public int getwStart() {
+		return wStart;
+	}
+
+	public int getwEnd() {
+		return wEnd;
+	}
+
+	@Override
+	public String toString() {
+		return "Scenario [capacity=" + maxResourceCapacity + ", window=[" + wStart + "," + wEnd + "]]";
+	}
+}
@@ -0,0 +1,92 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.lip6.scheduler.Schedule;
+
+/**
+ * The outcome of a {@link Scenario}: how many plans have been scheduled, the
+ * makespan and the utilization of the resources.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class ScenarioResult {
+	private final Scenario scenario;
+	private final int scheduledPlans;
+	private final int unscheduledPlans;
+	private final int makespan;
+	private final double utilization;
+	private final Optional<Schedule> schedule;
+
+	ScenarioResult(Scenario scenario, int scheduledPlans, int unscheduledPlans, int makespan, double utilization,
+			Optional<Schedule> schedule) {
+		this.scenario = scenario;
+		this.scheduledPlans = scheduledPlans;
+		this.unscheduledPlans = unscheduledPlans;
+		this.makespan = makespan;
+		this.utilization = utilization;
+		this.schedule = schedule;
+	}
+
+	public Scenario getScenario() {
+		return scenario;
+	}
+
+	public int getScheduledPlans() {
+		return scheduledPlans;
+	}
+
+	public int getUnscheduledPlans() {
+		return unscheduledPlans;
+	}
+
+	/**
+	 * @return the time elapsed between W<sub>s</sub> and the accomplishment of
+	 *         the last scheduled task, or 0 if no task has been scheduled
+	 */
+	public int getMakespan() {
+		return makespan;
+	}
+
+	/**
+	 * @return the ratio between the time the scheduled tasks are executed, each
+	 *         one using one unit of capacity as in {@link Utilization}, and the
+	 *         capacity available in the temporal window, for all the resources
+	 */
+	public double getUtilization() {
+		return utilization;
+	}
+
+	/**
+	 * @return the schedule built for the scenario, if the sweep keeps it
+	 */
+	public Optional<Schedule> getSchedule() {
+		return schedule;
+	}
+
+	@Override
+	public String toString() {
+		return scenario + ": scheduled=" + scheduledPlans + ", unscheduled=" + unscheduledPlans + ", makespan="
+				+ makespan + ", utilization=" + utilization;
+	}
+
+	/**
+	 * Format the given results as a table, one row per scenario.
+	 * 
+	 * @param results
+	 * @return
+	 */
+	public static String toTable(List<ScenarioResult> results) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%10s %8s %8s %10s %12s %10s %12s%n", "capacity", "Ws", "We", "scheduled",
+				"unscheduled", "makespan", "utilization"));
+		for (ScenarioResult r : results) {
+			sb.append(String.format("%10d %8d %8d %10d %12d %10d %12.3f%n", r.scenario.getMaxResourceCapacity(),
+					r.scenario.getwStart(), r.scenario.getwEnd(), r.scheduledPlans, r.unscheduledPlans, r.makespan,
+					r.utilization));
+		}
+		return sb.toString();
+	}
+}
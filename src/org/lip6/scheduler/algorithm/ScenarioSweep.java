@@ -0,0 +1,150 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+import org.lip6.scheduler.Task;
+import org.lip6.scheduler.TaskSchedule;
+import org.lip6.scheduler.utils.Utils;
+
+/**
+ * What-if analysis over the parameters of the scheduler. The same set of plans
+ * is scheduled once for each {@link Scenario}, and the scenarios are run in
+ * parallel on a bounded pool of threads. Since the scheduler does not modify
+ * the plans, all the scenarios share the same (already parsed) instance.<br/>
+ * <br/>
+ * Example of usage:
+ * 
+ * <pre>
+ * {@code
+ * List<Scenario> grid = Scenario.grid(Arrays.asList(2, 3), Arrays.asList(1), Arrays.asList(150, 180));
+ * List<ScenarioResult> results = ScenarioSweep.run(plans, grid, 4);
+ * System.out.println(ScenarioResult.toTable(results));
+ * }
+ * </pre>
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public class ScenarioSweep {
+
+	/**
+	 * Schedule the given plans once for each scenario, using as many threads as
+	 * the available processors.
+	 * 
+	 * @param plans     the set of plans to schedule
+	 * @param scenarios the scenarios to evaluate
+	 * @return the results, in the same order as the scenarios
+	 */
+	public static List<ScenarioResult> run(Set<Plan> plans, List<Scenario> scenarios) {
+		return run(plans, scenarios, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Schedule the given plans once for each scenario. The results keep the
+	 * schedules built.
+	 * 
+	 * @param plans       the set of plans to schedule
+	 * @param scenarios   the scenarios to evaluate
+	 * @param parallelism the maximum number of scenarios evaluated at the same
+	 *                    time
+	 * @return the results, in the same order as the scenarios
+	 */
+	public static List<ScenarioResult> run(Set<Plan> plans, List<Scenario> scenarios, int parallelism) {
+		return run(plans, scenarios, parallelism, true);
+	}
+
+	/**
+	 * Schedule the given plans once for each scenario.
+	 * 
+	 * @param plans         the set of plans to schedule
+	 * @param scenarios     the scenarios to evaluate
+	 * @param parallelism   the maximum number of scenarios evaluated at the same
+	 *                      time
+	 * @param keepSchedules whether the results keep the schedules built. On a
+	 *                      large grid, the schedules may take much more memory
+	 *                      than the summaries.
+	 * @return the results, in the same order as the scenarios
+	 */
+	public static List<ScenarioResult> run(Set<Plan> plans, List<Scenario> scenarios, int parallelism,
+			boolean keepSchedules) {
+		Utils.requireValidBounds(parallelism, 1, Integer.MAX_VALUE, "Parallelism must be a positive integer value.");
+		if (scenarios.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, scenarios.size()));
+		try {
+			List<Future<ScenarioResult>> futures = new ArrayList<>();
+			for (Scenario scenario : scenarios) {
+				futures.add(pool.submit(() -> evaluate(plans, scenario, keepSchedules)));
+			}
+
+			List<ScenarioResult> results = new ArrayList<>();
+			for (Future<ScenarioResult> f : futures) {
+				results.add(f.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while evaluating the scenarios", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error while evaluating a scenario", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Schedule the given plans according to the scenario, and summarize the
+	 * result, which keeps the schedule built.
+	 * 
+	 * @param plans
+	 * @param scenario
+	 * @return
+	 */
+	public static ScenarioResult evaluate(Set<Plan> plans, Scenario scenario) {
+		return evaluate(plans, scenario, true);
+	}
+
+	/**
+	 * Schedule the given plans according to the scenario, and summarize the
+	 * result. As in {@link Utilization}, each task executed uses one unit of
+	 * the capacity of its resource.
+	 * 
+	 * @param plans
+	 * @param scenario
+	 * @param keepSchedule whether the result keeps the schedule built
+	 * @return
+	 */
+	public static ScenarioResult evaluate(Set<Plan> plans, Scenario scenario, boolean keepSchedule) {
+		Scheduler scheduler = SchedulerFactory.get(scenario.getMaxResourceCapacity(), plans, scenario.getwStart(),
+				scenario.getwEnd());
+		Schedule s = scheduler.buildSchedule();
+
+		int lastAccomplishment = scenario.getwStart();
+		long usage = 0;
+		for (TaskSchedule ts : s.taskScheduleView()) {
+			Task t = ts.getTask();
+			lastAccomplishment = Math.max(lastAccomplishment, ts.getStartingTime() + t.getProcessingTime());
+			usage += t.getProcessingTime();
+		}
+
+		long available = (long) scheduler.resourcesIDs.size() * scenario.getMaxResourceCapacity()
+				* (scenario.getwEnd() - scenario.getwStart());
+		double utilization = available == 0 ? 0 : (double) usage / available;
+
+		return new ScenarioResult(scenario, scheduler.getScheduledPlans().size(),
+				scheduler.getUnscheduledPlans().size(), lastAccomplishment - scenario.getwStart(), utilization,
+				keepSchedule ? Optional.of(s) : Optional.empty());
+	}
+}
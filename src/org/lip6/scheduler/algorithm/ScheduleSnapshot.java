@@ -0,0 +1,113 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Schedule;
+
+/**
+ * The progress of the scheduler, as published by the scheduling thread after
+ * each plan (or set of plans having the same priority) has been dispatched. A
+ * snapshot never changes once published, so any number of threads can read it
+ * through {@link Scheduler#getSnapshot()} without locking and without slowing
+ * the scheduling thread.<br/>
+ * <br/>
+ * The schedule of a snapshot is the last feasible solution of the run, which
+ * the scheduler copies anyway at each step and never modifies afterwards. It
+ * must not be modified by the readers.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class ScheduleSnapshot {
+	private final Schedule schedule;
+	private final Set<Integer> unscheduledPlans;
+	private final int plans;
+	private final boolean complete;
+
+	private ScheduleSnapshot(Schedule schedule, Set<Integer> unscheduledPlans, int plans, boolean complete) {
+		this.schedule = schedule;
+		this.unscheduledPlans = unscheduledPlans;
+		this.plans = plans;
+		this.complete = complete;
+	}
+
+	/**
+	 * Get the snapshot of a run
+	 *
+	 * @param solution         the last feasible solution of the run
+	 * @param unscheduledPlans the plans found not schedulable by the run
+	 * @param plans            the number of plans of the scheduler
+	 * @param complete         true if the run has terminated
+	 * @return
+	 */
+	static ScheduleSnapshot get(Schedule solution, Collection<Plan> unscheduledPlans, int plans, boolean complete) {
+		Set<Integer> unscheduled = unscheduledPlans.stream().map(Plan::getID).collect(Collectors.toSet());
+		return new ScheduleSnapshot(solution, Collections.unmodifiableSet(unscheduled), plans, complete);
+	}
+
+	/**
+	 * @return the last feasible solution at the time of the snapshot
+	 */
+	public Schedule getSchedule() {
+		return schedule;
+	}
+
+	/**
+	 * @return the IDs of the plans in the schedule
+	 */
+	public List<Integer> getScheduledPlans() {
+		return schedule.plans();
+	}
+
+	/**
+	 * @return the IDs of the plans found not schedulable so far
+	 */
+	public Set<Integer> getUnscheduledPlans() {
+		return unscheduledPlans;
+	}
+
+	/**
+	 * @return the number of plans of the scheduler, dispatched or not
+	 */
+	public int getPlans() {
+		return plans;
+	}
+
+	/**
+	 * @return the number of plans dispatched so far, either scheduled or found
+	 *         not schedulable
+	 */
+	public int getProcessedPlans() {
+		return schedule.plans().size() + unscheduledPlans.size();
+	}
+
+	/**
+	 * @return the fraction of the plans that have been dispatched, between 0 and
+	 *         1. It is lower than 1 at the end of a run that has been stopped (see
+	 *         {@link Scheduler#buildSchedule(Cancellation)}).
+	 */
+	public double getProgress() {
+		if (plans == 0) {
+			return 1;
+		}
+		return Math.min(1, (double) getProcessedPlans() / plans);
+	}
+
+	/**
+	 * @return true if the run that published this snapshot has terminated
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	@Override
+	public String toString() {
+		return "ScheduleSnapshot [scheduled=" + schedule.plans().size() + ", unscheduled=" + unscheduledPlans.size()
+				+ ", plans=" + plans + ", complete=" + complete + "]";
+	}
+}
@@ -1,19 +1,31 @@
 package org.lip6.scheduler.algorithm;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.Set;
 import java.util.Stack;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.list.TreeList;
@@ -26,6 +38,8 @@ import org.lip6.scheduler.Task;
 import org.lip6.scheduler.TaskSchedule;
 import org.lip6.scheduler.utils.Utils;
 
+import etm.core.monitor.EtmPoint;
+
 /**
  * Scheduler class.
  * 
@@ -44,21 +58,24 @@ public class Scheduler {
 	 */
 	private Set<Plan> plans;
 	/**
-	 * The IDs of all the resources employed by the plans.
+	 * The plans (value) by ID (key)
 	 */
-	Set<Integer> resourcesIDs;
+	private Map<Integer, Plan> plansByID;
 	/**
-	 * The set of scheduled plans.
+	 * The IDs of all the resources employed by the plans.
 	 */
-	private Set<Plan> scheduledPlans;
+	Set<Integer> resourcesIDs;
 	/**
-	 * The set of unscheduled plans.
+	 * The state of the last run of {@link #buildSchedule()}: the timeline and
+	 * the sets of scheduled and unscheduled plans. Each run works on its own
+	 * context, which is published here when the run ends.
 	 */
-	private Set<Plan> unscheduledPlans;
+	volatile RunContext lastRun;
 	/**
-	 * The set of events
+	 * The progress of the current run, published after each step for the
+	 * threads that poll it. Null until a run starts.
 	 */
-	TreeSet<Event> events;
+	volatile ScheduleSnapshot snapshot;
 	/**
 	 * The maximum allowed capacity of each resource
 	 */
@@ -74,6 +91,138 @@ public class Scheduler {
 	 * the user doesn't know which value of We to choose.
 	 */
 	private boolean calculateOptimalWe;
+	/**
+	 * The number of probes run in parallel by the search for the optimal We
+	 */
+	private int optimalWeParallelism;
+	/**
+	 * When {@link #insertPlans(Set)} has to rebuild the whole schedule
+	 */
+	private RebuildPolicy rebuildPolicy;
+	/**
+	 * If true, the plans are split into independent components, scheduled
+	 * separately
+	 */
+	private boolean decomposeComponents;
+	/**
+	 * The number of components scheduled in parallel
+	 */
+	private int componentParallelism;
+	/**
+	 * The number of plans placed speculatively in parallel by ALGORITHM 1
+	 */
+	private int placementParallelism;
+	/**
+	 * The number of neighbourhoods explored in parallel by
+	 * {@link #improve(Cancellation)}
+	 */
+	private int improvementParallelism;
+	/**
+	 * The number of consecutive steps without improvement after which
+	 * {@link #improve(Cancellation)} stops
+	 */
+	private int improvementPatience;
+	/**
+	 * The number of partial schedules kept by ALGORITHM 3
+	 */
+	private int beamWidth;
+	/**
+	 * The engine used by {@link #buildSchedule(Cancellation)}
+	 */
+	private Engine engine;
+	/**
+	 * The order of the plans having the same priority value, for
+	 * {@link Engine#LIST}
+	 */
+	private PlanOrdering listOrdering;
+	/**
+	 * If true, the plans that can never be scheduled are rejected before their
+	 * placement
+	 */
+	private boolean preScreen;
+	/**
+	 * Where the task schedules evicted by {@link #advanceWindow(int, int)} are
+	 * written, if any
+	 */
+	Optional<Appendable> spill;
+
+	/**
+	 * When the plans that arrive after a schedule has been built, and are
+	 * inserted with {@link Scheduler#insertPlans(Set)}, require to rebuild the
+	 * whole schedule. In any case, the schedule is rebuilt when a new plan has to
+	 * precede a plan already dispatched.
+	 */
+	public enum RebuildPolicy {
+		/**
+		 * The new plans are always placed after the plans already dispatched, even
+		 * if they have a higher priority
+		 */
+		NEVER,
+		/**
+		 * Rebuild unless every new plan comes after the plans already dispatched
+		 * in the order of ALGORITHM 1, so that inserting the new plans gives the
+		 * same schedule as a rebuild
+		 */
+		ON_PRIORITY_INVERSION,
+		/**
+		 * Always rebuild
+		 */
+		ALWAYS
+	}
+
+	/**
+	 * The order in which the plans of a frontier of the precedence graph are
+	 * dispatched by ALGORITHM 1. Except for {@link #PRIORITY}, the plans are
+	 * sorted by the key of the ordering first, and then by priority.
+	 */
+	public enum PlanOrdering {
+		/**
+		 * The highest priority first, as in {@link Scheduler#buildSchedule()}
+		 */
+		PRIORITY,
+		/**
+		 * The plan whose earliest task due date is the smallest first
+		 */
+		EARLIEST_DUE_DATE,
+		/**
+		 * The plan having the task with the smallest interval between release time
+		 * and due date first
+		 */
+		LEAST_SLACK,
+		/**
+		 * The plan that asks the most of the busiest resources first: each task
+		 * weighs its processing time times its usage, times the demand of all the
+		 * plans on its resource
+		 */
+		MOST_CONSTRAINED,
+		/**
+		 * A random order, drawn from a seed
+		 */
+		RANDOM
+	}
+
+	/**
+	 * The algorithm that builds the schedule
+	 */
+	public enum Engine {
+		/**
+		 * ALGORITHM 1: the plans are dispatched in topological order by frontier
+		 * and priority, and the plans having the same priority value are compared
+		 * by ALGORITHM 3
+		 */
+		ALGORITHM_1,
+		/**
+		 * List scheduling, for very large instances: the plan to dispatch is taken
+		 * from a priority queue of the plans whose predecessors have been
+		 * dispatched, by priority and then by
+		 * {@link Scheduler#getListOrdering()}, and each of its tasks is placed once
+		 * at its earliest fit. The run takes O(n log n) for n tasks, plus the
+		 * steps of the usage of a resource skipped by its tasks, and never copies
+		 * the schedule nor the timeline. The constraints are the same as in
+		 * ALGORITHM 1, but the plans are not compared to each other.
+		 */
+		LIST
+	}
 
 	/**
 	 * Constructor for the Scheduler class
@@ -81,35 +230,290 @@ public class Scheduler {
 	protected Scheduler() {
 		listener = Optional.empty();
 		plans = new HashSet<>();
-		scheduledPlans = new HashSet<>();
-		unscheduledPlans = new HashSet<>();
+		plansByID = new HashMap<>();
 		resourcesIDs = new HashSet<>();
-		events = new TreeSet<>(Event.getComparator());
+		lastRun = RunContext.get(wStart, wEnd, resourcesIDs);
 		calculateOptimalWe = false;
+		optimalWeParallelism = 1;
+		rebuildPolicy = RebuildPolicy.ON_PRIORITY_INVERSION;
+		spill = Optional.empty();
+		decomposeComponents = false;
+		componentParallelism = Runtime.getRuntime().availableProcessors();
+		placementParallelism = 1;
+		improvementParallelism = Runtime.getRuntime().availableProcessors();
+		improvementPatience = 200;
+		beamWidth = 1;
+		engine = Engine.ALGORITHM_1;
+		listOrdering = PlanOrdering.EARLIEST_DUE_DATE;
+		preScreen = false;
 	}
 
 	public boolean isCalculateOptimalWe() {
 		return calculateOptimalWe;
 	}
 
+	/**
+	 * If true, {@link #buildSchedule()} searches for the smallest W<sub>e</sub>,
+	 * not greater than the one of this scheduler, that allows to schedule the same
+	 * plans scheduled with the whole temporal window. The result is the schedule
+	 * built with such W<sub>e</sub>.
+	 * 
+	 * @param calculateOptimalWe
+	 */
 	public void setCalculateOptimalWe(boolean calculateOptimalWe) {
 		this.calculateOptimalWe = calculateOptimalWe;
 	}
 
+	public int getOptimalWeParallelism() {
+		return optimalWeParallelism;
+	}
+
+	/**
+	 * Set the number of values of W<sub>e</sub> tried in parallel by the search
+	 * for the optimal W<sub>e</sub>. With 1 (the default), the search is a binary
+	 * search executed by the calling thread.
+	 * 
+	 * @param optimalWeParallelism
+	 */
+	public void setOptimalWeParallelism(int optimalWeParallelism) {
+		this.optimalWeParallelism = Utils.requireValidBounds(optimalWeParallelism, 1, Integer.MAX_VALUE,
+				"Parallelism must be a positive integer value.");
+	}
+
+	public RebuildPolicy getRebuildPolicy() {
+		return rebuildPolicy;
+	}
+
+	/**
+	 * Set when {@link #insertPlans(Set)} rebuilds the whole schedule. The default
+	 * is {@link RebuildPolicy#ON_PRIORITY_INVERSION}.
+	 * 
+	 * @param rebuildPolicy
+	 */
+	public void setRebuildPolicy(RebuildPolicy rebuildPolicy) {
+		this.rebuildPolicy = Objects.requireNonNull(rebuildPolicy, "Rebuild policy cannot be null");
+	}
+
+	public boolean isDecomposeComponents() {
+		return decomposeComponents;
+	}
+
+	/**
+	 * If true, {@link #buildSchedule()} splits the plans into components: two
+	 * plans belong to the same component if they use a common resource or one
+	 * precedes the other, directly or through other plans. Each component is
+	 * scheduled on its own timeline, which contains only its resources, and the
+	 * components are scheduled in parallel.<br/>
+	 * <br/>
+	 * Since the components share nothing, the plans are placed as in a single
+	 * timeline, except that the plans having the same priority value are
+	 * compared (ALGORITHM 3) only with the plans of their own component.<br/>
+	 * <br/>
+	 * Each component is scheduled with the beam width (see
+	 * {@link #setBeamWidth(int)}) and the placement parallelism (see
+	 * {@link #setPlacementParallelism(int)}) of this scheduler. The plans are
+	 * pre-screened (see {@link #setPreScreen(boolean)}) once, before they are
+	 * split, and the components are always built by ALGORITHM 1, since
+	 * {@link Engine#LIST} does not split the plans.
+	 * 
+	 * @param decomposeComponents
+	 */
+	public void setDecomposeComponents(boolean decomposeComponents) {
+		this.decomposeComponents = decomposeComponents;
+	}
+
+	public int getComponentParallelism() {
+		return componentParallelism;
+	}
+
+	/**
+	 * Set the number of components scheduled at the same time. The default is
+	 * the number of available processors.
+	 * 
+	 * @param componentParallelism
+	 */
+	public void setComponentParallelism(int componentParallelism) {
+		this.componentParallelism = Utils.requireValidBounds(componentParallelism, 1, Integer.MAX_VALUE,
+				"Parallelism must be a positive integer value.");
+	}
+
+	public int getPlacementParallelism() {
+		return placementParallelism;
+	}
+
+	/**
+	 * Set the number of consecutive plans whose placement is computed in
+	 * parallel by ALGORITHM 1. With 1 (the default), the plans are placed one at
+	 * a time.<br/>
+	 * <br/>
+	 * The placements are computed concurrently on the timeline left by the plans
+	 * that precede them, without modifying it, and then committed in the order of
+	 * ALGORITHM 1. A placement is committed as it is only if none of the plans
+	 * committed before it in the same group has used one of its resources;
+	 * otherwise the plan is placed again. So the schedule is the same as the one
+	 * built placing one plan at a time. Only the plans without synchronized tasks
+	 * and having a priority value not shared with other plans are placed in
+	 * parallel.
+	 * 
+	 * @param placementParallelism
+	 */
+	public void setPlacementParallelism(int placementParallelism) {
+		this.placementParallelism = Utils.requireValidBounds(placementParallelism, 1, Integer.MAX_VALUE,
+				"Parallelism must be a positive integer value.");
+	}
+
+	public int getImprovementParallelism() {
+		return improvementParallelism;
+	}
+
+	/**
+	 * Set the number of neighbourhoods explored at the same time by
+	 * {@link #improve(Cancellation)}. The default is the number of available
+	 * processors.
+	 * 
+	 * @param improvementParallelism
+	 */
+	public void setImprovementParallelism(int improvementParallelism) {
+		this.improvementParallelism = Utils.requireValidBounds(improvementParallelism, 1, Integer.MAX_VALUE,
+				"Parallelism must be a positive integer value.");
+	}
+
+	public int getImprovementPatience() {
+		return improvementPatience;
+	}
+
+	/**
+	 * Set the number of consecutive steps of {@link #improve(Cancellation)}
+	 * that do not improve the solution after which the search stops, even if
+	 * its deadline has not expired. The default is 200.
+	 * 
+	 * @param improvementPatience
+	 */
+	public void setImprovementPatience(int improvementPatience) {
+		this.improvementPatience = Utils.requireValidBounds(improvementPatience, 1, Integer.MAX_VALUE,
+				"The patience must be a positive integer value.");
+	}
+
+	public int getBeamWidth() {
+		return beamWidth;
+	}
+
+	/**
+	 * Set the number of partial schedules kept by ALGORITHM 3 when it schedules
+	 * a set of plans having the same priority value. With 1 (the default), the
+	 * plan having the minimum idle time is placed at each iteration.<br/>
+	 * <br/>
+	 * With a greater width, ALGORITHM 3 is a beam search: at each iteration, each
+	 * of the partial schedules kept is extended with each plan left, in parallel,
+	 * and the extensions that schedule the most plans with the smallest total
+	 * idle time are kept. An extension is discarded as soon as it cannot schedule
+	 * more plans, or the same plans with a smaller idle time, than a complete
+	 * schedule of the set already found.
+	 * 
+	 * @param beamWidth
+	 */
+	public void setBeamWidth(int beamWidth) {
+		this.beamWidth = Utils.requireValidBounds(beamWidth, 1, Integer.MAX_VALUE,
+				"Beam width must be a positive integer value.");
+	}
+
+	public Engine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Set the engine used by {@link #buildSchedule()}. The default is
+	 * {@link Engine#ALGORITHM_1}.<br/>
+	 * <br/>
+	 * With {@link Engine#LIST}, the plans are neither decomposed into components
+	 * nor compared by ALGORITHM 3, the optimal W<sub>e</sub> is not searched, and
+	 * the listener is notified only of the final solution. The plans inserted,
+	 * the improvements and the portfolio still use ALGORITHM 1.
+	 * 
+	 * @param engine
+	 */
+	public void setEngine(Engine engine) {
+		this.engine = Objects.requireNonNull(engine, "Engine cannot be null");
+	}
+
+	public PlanOrdering getListOrdering() {
+		return listOrdering;
+	}
+
+	/**
+	 * Set the order of the plans having the same priority value in
+	 * {@link Engine#LIST}. The default is {@link PlanOrdering#EARLIEST_DUE_DATE}.
+	 * 
+	 * @param listOrdering
+	 */
+	public void setListOrdering(PlanOrdering listOrdering) {
+		this.listOrdering = Objects.requireNonNull(listOrdering, "Plan ordering cannot be null");
+	}
+
+	public boolean isPreScreen() {
+		return preScreen;
+	}
+
+	/**
+	 * If true, the plans are screened, in parallel, before they are dispatched:
+	 * a plan that can never be scheduled in the temporal window, whatever the
+	 * other plans, is added to the unscheduled plans without being placed nor
+	 * compared by ALGORITHM 3 (see {@link #getScreenedPlans()}). A plan is
+	 * rejected if one of its tasks cannot start in both its own time window and
+	 * the temporal window, or uses more than the capacity of its resource; if
+	 * its synchronized tasks have no starting time in common; or if the chain of
+	 * its predecessors cannot complete before the due date of a task.<br/>
+	 * <br/>
+	 * The schedule is the same as without the pre-screen: such a plan would fail
+	 * anyway, a failed placement leaves the timeline as it was, and the rejected
+	 * plans keep their place in the order of dispatch, so that the plans having
+	 * their priority are scheduled at the same time. The
+	 * {@code org.lip6.benchmarks.RegressionCheck} runner of the benchmarks checks
+	 * it.
+	 * 
+	 * @param preScreen
+	 */
+	public void setPreScreen(boolean preScreen) {
+		this.preScreen = preScreen;
+	}
+
+	/**
+	 * Set where the task schedules evicted by {@link #advanceWindow(int, int)}
+	 * are written, as CSV records having the fields: plan ID, task ID, resource
+	 * ID, starting time, processing time.
+	 * 
+	 * @param out the destination, or null to discard the evicted task schedules
+	 */
+	public void setSpill(Appendable out) {
+		spill = Optional.ofNullable(out);
+	}
+
+	/**
+	 * Get the W<sub>e</sub> used by the last run of {@link #buildSchedule()}.
+	 * It differs from {@link #getwEnd()} only if the optimal W<sub>e</sub> has
+	 * been calculated.
+	 * 
+	 * @return
+	 */
+	public int getOptimalWe() {
+		return lastRun.wEnd;
+	}
+
 	/**
 	 * Clear the result of the current scheduler
 	 */
 	public void clear() {
 		plans.clear();
+		plansByID.clear();
 		resourcesIDs.clear();
-		scheduledPlans.clear();
-		unscheduledPlans.clear();
-		events.clear();
+		lastRun = RunContext.get(wStart, wEnd, resourcesIDs);
+		snapshot = null;
 	}
 
 	public void addPlans(Set<Plan> plans) {
 		this.plans.addAll(plans);
 		for (Plan p : plans) {
+			plansByID.put(p.getID(), p);
 			resourcesIDs.addAll(p.getTasks().stream().map(x -> x.getResourceID()).collect(Collectors.toList()));
 		}
 	}
@@ -117,213 +521,1245 @@ public class Scheduler {
 	/**
 	 * Return the set of all plans assigned to this scheduler
 	 * 
-	 * @return
+	 * @return
+	 */
+	public Set<Plan> getPlans() {
+		return Collections.unmodifiableSet(plans);
+	}
+
+	/**
+	 * 2 Return the set of scheduled plans within the temporal window
+	 * [W<sub>s</sub>,W<sub>e</sub>]
+	 * 
+	 * @return
+	 */
+	public Set<Plan> getScheduledPlans() {
+		return Collections.unmodifiableSet(lastRun.scheduledPlans);
+	}
+
+	/**
+	 * Return the set of unscheduled plans within the temporal window
+	 * [W<sub>s</sub>,W<sub>e</sub>]
+	 * 
+	 * @return
+	 */
+	public Set<Plan> getUnscheduledPlans() {
+		return Collections.unmodifiableSet(lastRun.unscheduledPlans);
+	}
+
+	/**
+	 * Get the plans rejected by the pre-screen of the last run (see
+	 * {@link #setPreScreen(boolean)}). They are also unscheduled.
+	 * 
+	 * @return for each plan ID (key), the reason why the plan can never be
+	 *         scheduled (value)
+	 */
+	public Map<Integer, Feasibility.Reason> getScreenedPlans() {
+		return Collections.unmodifiableMap(lastRun.screenedPlans);
+	}
+
+	/**
+	 * Get the maximum allowed capacity of all the resources employed
+	 * 
+	 * @return
+	 */
+	public int getMaxResourceCapacity() {
+		return maxResourceCapacity;
+	}
+
+	/**
+	 * Get W<sub>s</sub>
+	 * 
+	 * @return
+	 */
+	public int getwStart() {
+		return wStart;
+	}
+
+	/**
+	 * Get W<sub>e</sub>
+	 * 
+	 * @return
+	 */
+	public int getwEnd() {
+		return wEnd;
+	}
+
+	/**
+	 * Set the temporal window this scheduler has to operate. The result of the
+	 * last run, if any, is discarded.
+	 * 
+	 * @param wStart
+	 * @param wEnd
+	 */
+	public void setTemporalWindow(int wStart, int wEnd) {
+		if (wEnd <= wStart) {
+			throw new IllegalArgumentException(
+					"Invalid temporal window [" + Integer.toString(wStart) + "," + Integer.toString(wEnd) + "]");
+		}
+		this.wStart = wStart;
+		this.wEnd = wEnd;
+		lastRun = RunContext.get(wStart, wEnd, resourcesIDs);
+	}
+
+	/**
+	 * <b>ALGORITHM 1</b>
+	 *
+	 * @return
+	 */
+	public Schedule buildSchedule() {
+		return buildSchedule(Cancellation.get()).getSchedule();
+	}
+
+	/**
+	 * <b>ALGORITHM 1</b>, stopped if it does not terminate within the given time.
+	 * 
+	 * @param timeout the time allowed to the run
+	 * @param unit    the unit of the timeout
+	 * @return the last feasible solution, partial if the deadline has expired
+	 * @see #buildSchedule(Cancellation)
+	 */
+	public BuildResult buildSchedule(long timeout, TimeUnit unit) {
+		return buildSchedule(Cancellation.withTimeout(timeout, unit));
+	}
+
+	/**
+	 * <b>ALGORITHM 1</b>, stopped when the given token is cancelled or its
+	 * deadline expires.<br/>
+	 * <br/>
+	 * The token is checked before each plan is dispatched, before each trial of
+	 * ALGORITHM 3 and before each task of a plan is placed. When the run stops,
+	 * the plan being placed is removed from the working solution, and the result
+	 * is the last feasible solution: the plans dispatched so far are either
+	 * scheduled or unscheduled, as in a complete run, while the others are
+	 * pending. The search for the optimal W<sub>e</sub> (see
+	 * {@link #setCalculateOptimalWe(boolean)}) is not started if the run has
+	 * been stopped, and ends with the best W<sub>e</sub> found so far if the
+	 * token stops it.
+	 * 
+	 * @param cancellation the token checked by the run
+	 * @return the last feasible solution and the status of the run
+	 */
+	public BuildResult buildSchedule(Cancellation cancellation) {
+		Objects.requireNonNull(cancellation);
+		if (engine == Engine.LIST) {
+			snapshot = ScheduleSnapshot.get(Schedule.get(wStart, wEnd), Collections.emptySet(), plans.size(), false);
+			RunContext ctx = buildList(cancellation, screen(new ArrayList<>(plans), wStart, wEnd));
+			lastRun = ctx;
+			publish(ctx, true);
+			return new BuildResult(ctx.lastFeasibleSolution, ctx.getStatus(),
+					ctx.pendingPlans.stream().map(Plan::getID).collect(Collectors.toSet()), plans.size());
+		}
+		// Sort the plans according to the precedences (if any), and also
+		// according to their priority value. The order does not depend on the
+		// temporal window, so it is computed once for all the runs below.
+		List<Plan> sortedPlans = Collections.emptyList();
+		if (!plans.isEmpty()) {
+			EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SORT_PLANS);
+			sortedPlans = sortPlans(plans.stream().map(x -> (ExecutableNode) x).collect(Collectors.toList()));
+			SchedulerInstrumentation.collect(point);
+		}
+		// The plans rejected by the pre-screen are dispatched anyway, but are not
+		// tried (see dispatch)
+		Map<Plan, Feasibility.Reason> screened = screen(sortedPlans, wStart, wEnd);
+
+		snapshot = ScheduleSnapshot.get(Schedule.get(wStart, wEnd), Collections.emptySet(), plans.size(), false);
+
+		// Each run works on its own state, so that the same plans can be
+		// scheduled again, or concurrently by another thread
+		RunContext ctx;
+		List<List<Plan>> components = decomposeComponents ? components(sortedPlans)
+				: Collections.singletonList(sortedPlans);
+		if (components.size() > 1) {
+			ctx = buildComponents(components, screened, cancellation);
+		} else {
+			ctx = RunContext.get(wStart, wEnd, resourcesIDs);
+			ctx.setCancellation(cancellation);
+			reject(ctx, screened);
+			buildSchedule(ctx, sortedPlans);
+		}
+
+		if (calculateOptimalWe && !ctx.isStopped()) {
+			ctx = searchOptimalWe(ctx, sortedPlans, screened);
+		}
+		reject(ctx, screened);
+		lastRun = ctx;
+		publish(ctx, true);
+		return new BuildResult(ctx.lastFeasibleSolution, ctx.getStatus(),
+				ctx.pendingPlans.stream().map(Plan::getID).collect(Collectors.toSet()), plans.size());
+	}
+
+	/**
+	 * <b>ALGORITHM 1</b> using the given context as state of the run.
+	 *
+	 * @param ctx         the state of the run
+	 * @param sortedPlans the plans to schedule, sorted by
+	 *                    {@link #sortPlans(List)}
+	 */
+	void buildSchedule(RunContext ctx, List<Plan> sortedPlans) {
+		// Create the empty schedules
+		Schedule workingSolution = Schedule.get(ctx.wStart, ctx.wEnd);
+		ctx.lastFeasibleSolution = Schedule.get(ctx.wStart, ctx.wEnd);
+		dispatch(ctx, workingSolution, sortedPlans);
+	}
+
+	/**
+	 * Build the schedule with {@link Engine#LIST}.
+	 *
+	 * @param cancellation the token checked before each plan
+	 * @param screened     the plans rejected by the pre-screen
+	 * @return the run
+	 */
+	private RunContext buildList(Cancellation cancellation, Map<Plan, Feasibility.Reason> screened) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.BUILD_LIST);
+		RunContext ctx = RunContext.get(wStart, wEnd, resourcesIDs);
+		ctx.setCancellation(cancellation);
+		Schedule solution = Schedule.get(wStart, wEnd);
+		ListScheduler list = ListScheduler.get(maxResourceCapacity, wStart, wEnd);
+		reject(ctx, screened);
+
+		// Kahn's algorithm on the precedences between plans: the plans whose
+		// predecessors have all been dispatched are ready
+		Map<Integer, Plan> byID = new HashMap<>();
+		plans.forEach(p -> byID.put(p.getID(), p));
+		Map<Integer, Integer> predecessors = new HashMap<>();
+		for (Plan p : plans) {
+			p.getSuccessors().stream().filter(byID::containsKey).forEach(x -> predecessors.merge(x, 1, Integer::sum));
+		}
+		Comparator<Plan> order = PLAN_PRIORITY_COMPARATOR.thenComparing(planComparator(listOrdering, 0))
+				.thenComparingInt(Plan::getID);
+		PriorityQueue<Plan> ready = new PriorityQueue<>(order);
+		plans.stream().filter(p -> !predecessors.containsKey(p.getID())).forEach(ready::add);
+
+		while (!ready.isEmpty()) {
+			if (ctx.shouldStop()) {
+				break;
+			}
+			Plan pk = ready.poll();
+			// The plans rejected by the pre-screen are already unscheduled
+			if (!screened.containsKey(pk)) {
+				if (list.place(pk, solution)) {
+					ctx.scheduledPlans.add(pk);
+				} else {
+					ctx.unscheduledPlans.add(pk);
+					SchedulerInstrumentation.planRejected();
+				}
+			}
+			for (int successor : pk.getSuccessors()) {
+				if (byID.containsKey(successor) && predecessors.merge(successor, -1, Integer::sum) == 0) {
+					ready.add(byID.get(successor));
+				}
+			}
+		}
+
+		for (Plan p : plans) {
+			if (ctx.scheduledPlans.contains(p) || ctx.unscheduledPlans.contains(p)) {
+				continue;
+			}
+			if (ctx.isStopped()) {
+				ctx.pendingPlans.add(p);
+			} else {
+				// The plans on a cycle of precedences are never ready
+				ctx.unscheduledPlans.add(p);
+				SchedulerInstrumentation.planRejected();
+			}
+		}
+
+		list.buildTimeline(solution, ctx.events, resourcesIDs);
+		ctx.lastFeasibleSolution = solution;
+		SchedulerInstrumentation.collect(point);
+		notifyListener(ctx, solution);
+		return ctx;
+	}
+
+	/**
+	 * Pre-screen the given plans against the given temporal window, in parallel
+	 * (see {@link #setPreScreen(boolean)})
+	 *
+	 * @param candidates the plans to screen
+	 * @param wStart
+	 * @param wEnd
+	 * @return for each plan that can never be scheduled (key), the reason
+	 *         (value), in the order of the given plans. Empty if the pre-screen
+	 *         is disabled.
+	 */
+	Map<Plan, Feasibility.Reason> screen(List<Plan> candidates, int wStart, int wEnd) {
+		if (!preScreen || candidates.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.PRE_SCREEN);
+		int parallelism = Math.min(candidates.size(), Runtime.getRuntime().availableProcessors());
+		List<Map<Plan, Feasibility.Reason>> slices = new ArrayList<>();
+		if (parallelism == 1) {
+			slices.add(screenSlice(candidates, wStart, wEnd));
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+			try {
+				int size = (candidates.size() + parallelism - 1) / parallelism;
+				List<Future<Map<Plan, Feasibility.Reason>>> futures = new ArrayList<>();
+				for (int from = 0; from < candidates.size(); from += size) {
+					List<Plan> slice = candidates.subList(from, Math.min(candidates.size(), from + size));
+					futures.add(pool.submit(() -> screenSlice(slice, wStart, wEnd)));
+				}
+				for (Future<Map<Plan, Feasibility.Reason>> f : futures) {
+					slices.add(f.get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while screening the plans", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Error while screening the plans", e.getCause());
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+
+		Map<Plan, Feasibility.Reason> screened = new LinkedHashMap<>();
+		slices.forEach(screened::putAll);
+		SchedulerInstrumentation.collect(point);
+		return screened;
+	}
+
+	private Map<Plan, Feasibility.Reason> screenSlice(List<Plan> slice, int wStart, int wEnd) {
+		Map<Plan, Feasibility.Reason> screened = new LinkedHashMap<>();
+		for (Plan p : slice) {
+			PlanScreen.screen(p, maxResourceCapacity, wStart, wEnd).ifPresent(reason -> screened.put(p, reason));
+		}
+		return screened;
+	}
+
+	/**
+	 * Add the plans rejected by the pre-screen to the unscheduled plans of the
+	 * given run
+	 */
+	static void reject(RunContext ctx, Map<Plan, Feasibility.Reason> screened) {
+		screened.forEach((p, reason) -> {
+			if (ctx.unscheduledPlans.add(p)) {
+				SchedulerInstrumentation.planRejected();
+			}
+			ctx.setUnschedulable(p);
+			ctx.screenedPlans.put(p.getID(), reason);
+		});
+	}
+
+	/**
+	 * @return the plans of the given ones rejected by the pre-screen, with their
+	 *         reasons
+	 */
+	private static Map<Plan, Feasibility.Reason> screenedOf(Collection<Plan> plans,
+			Map<Plan, Feasibility.Reason> screened) {
+		Map<Plan, Feasibility.Reason> result = new LinkedHashMap<>();
+		plans.stream().filter(screened::containsKey).forEach(p -> result.put(p, screened.get(p)));
+		return result;
+	}
+
+	/**
+	 * Split the plans into the components linked by shared resources and by
+	 * precedences.
+	 *
+	 * @param sortedPlans the plans sorted by {@link #sortPlans(List)}
+	 * @return the components, each one sorted as the given plans, the largest
+	 *         first
+	 */
+	private static List<List<Plan>> components(List<Plan> sortedPlans) {
+		// Union-find on the positions of the plans
+		int[] parent = new int[sortedPlans.size()];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		Map<Integer, Integer> planIndex = new HashMap<>();
+		for (int i = 0; i < parent.length; i++) {
+			planIndex.put(sortedPlans.get(i).getID(), i);
+		}
+
+		Map<Integer, Integer> resourceOwner = new HashMap<>();
+		for (int i = 0; i < parent.length; i++) {
+			Plan p = sortedPlans.get(i);
+			for (Task t : p.getTasks()) {
+				Integer owner = resourceOwner.putIfAbsent(t.getResourceID(), i);
+				if (owner != null) {
+					union(parent, owner, i);
+				}
+			}
+			for (int successor : p.getSuccessors()) {
+				Integer j = planIndex.get(successor);
+				if (j != null) {
+					union(parent, i, j);
+				}
+			}
+		}
+
+		Map<Integer, List<Plan>> components = new LinkedHashMap<>();
+		for (int i = 0; i < parent.length; i++) {
+			components.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(sortedPlans.get(i));
+		}
+		List<List<Plan>> result = new ArrayList<>(components.values());
+		result.sort((a, b) -> Integer.compare(b.size(), a.size()));
+		return result;
+	}
+
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static void union(int[] parent, int i, int j) {
+		parent[find(parent, i)] = find(parent, j);
+	}
+
+	/**
+	 * Get the scheduler of a component, whose timeline contains only the
+	 * resources of the component, with the settings of this scheduler that
+	 * apply to a single run
+	 */
+	private Scheduler componentScheduler(List<Plan> component) {
+		Scheduler sub = SchedulerFactory.get(maxResourceCapacity, new HashSet<>(component), wStart, wEnd);
+		sub.beamWidth = beamWidth;
+		sub.placementParallelism = placementParallelism;
+		sub.engine = engine;
+		sub.listOrdering = listOrdering;
+		return sub;
+	}
+
+	/**
+	 * Schedule each component with its own scheduler, whose timeline contains
+	 * only the resources of the component, and merge the results.
+	 *
+	 * @param components   the components, each one sorted by
+	 *                     {@link #sortPlans(List)}
+	 * @param screened     the plans rejected by the pre-screen
+	 * @param cancellation the token checked by the run of each component
+	 * @return the merged run
+	 */
+	private RunContext buildComponents(List<List<Plan>> components, Map<Plan, Feasibility.Reason> screened,
+			Cancellation cancellation) {
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(componentParallelism, components.size()));
+		List<RunContext> runs = new ArrayList<>();
+		try {
+			List<Future<RunContext>> futures = new ArrayList<>();
+			for (List<Plan> component : components) {
+				futures.add(pool.submit(() -> {
+					Scheduler sub = componentScheduler(component);
+					RunContext ctx = RunContext.get(wStart, wEnd, sub.resourcesIDs);
+					ctx.setCancellation(cancellation);
+					reject(ctx, screenedOf(component, screened));
+					sub.buildSchedule(ctx, component);
+					return ctx;
+				}));
+			}
+			for (Future<RunContext> f : futures) {
+				runs.add(f.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while scheduling the components", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error while scheduling a component", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		// Merge the schedules and the sets of plans
+		RunContext merged = RunContext.get(wStart, wEnd, resourcesIDs);
+		merged.setCancellation(cancellation);
+		Schedule solution = Schedule.get(wStart, wEnd);
+		for (RunContext run : runs) {
+			merged.scheduledPlans.addAll(run.scheduledPlans);
+			merged.unscheduledPlans.addAll(run.unscheduledPlans);
+			merged.pendingPlans.addAll(run.pendingPlans);
+			merged.stop(run.getStatus());
+			for (TaskSchedule ts : run.lastFeasibleSolution.taskScheduleView()) {
+				solution.addTask(ts.getStartingTime(), ts.getTask());
+			}
+		}
+		merged.lastFeasibleSolution = solution;
+
+		// Merge the timelines. Since the components have disjoint resources, the
+		// usage at each time instant is the union of the usage of each component
+		// at that time.
+		TreeMap<Integer, List<Event>> byTime = new TreeMap<>();
+		runs.forEach(run -> run.events.forEach(e -> byTime.computeIfAbsent(e.getTime(), k -> new ArrayList<>()).add(e)));
+		Map<Integer, Integer> usage = new HashMap<>();
+		resourcesIDs.forEach(r -> usage.put(r, 0));
+		merged.events.clear();
+		for (Map.Entry<Integer, List<Event>> entry : byTime.entrySet()) {
+			Event m = Event.get(entry.getKey(), Collections.emptySet());
+			for (Event e : entry.getValue()) {
+				usage.putAll(e.resourceCapacity());
+				m.taskStartingHere().addAll(e.taskStartingHere());
+				m.taskTerminatingHere().addAll(e.taskTerminatingHere());
+			}
+			m.setResourceCapacities(usage);
+			merged.events.add(m);
+		}
+
+		notifyListener(merged, solution);
+		return merged;
+	}
+
+	/**
+	 * The main loop of <b>ALGORITHM 1</b>: schedule the given plans, in order,
+	 * on the timeline and the working solution of the given run.
+	 *
+	 * @param ctx             the state of the run
+	 * @param workingSolution the working solution, equal to the last feasible
+	 *                        solution of the run
+	 * @param sortedPlans     the plans to schedule, sorted by
+	 *                        {@link #sortPlans(List)}. The plans rejected by the
+	 *                        pre-screen of the run keep their place in the order,
+	 *                        so that each group of plans having the same priority
+	 *                        is dispatched as without the pre-screen, but they are
+	 *                        not tried.
+	 */
+	void dispatch(RunContext ctx, Schedule workingSolution, List<Plan> sortedPlans) {
+		Timeline events = ctx.events;
+
+		if (sortedPlans.isEmpty()) {
+			// System.err.println("Warning: No plan to schedule. Return an empty
+			// solution.");
+			return;
+		}
+
+		// Create a copy of the set of plans to schedule
+		// --
+		// TreeList for fast add/remove operations! Why not an HashSet? Because
+		// with Set collection the order of elements is not guarantee.
+		List<Plan> plansInput = new TreeList<>(sortedPlans);
+
+		// Create a map containing, for each priority as key value, the list of
+		// plans having that priority value. This is used later to schedule
+		// together the plans that have the same priority value.
+		Map<Integer, List<Plan>> plansWithSamePriority = new HashMap<>();
+		plansInput.forEach(x -> plansWithSamePriority.computeIfAbsent(x.getPriority(), k -> new ArrayList<>()).add(x));
+
+		ExecutorService pool = placementParallelism > 1 ? Executors.newFixedThreadPool(placementParallelism) : null;
+		// The placements computed in parallel for the next plans, and the
+		// resources used by the plans committed since they were computed
+		List<TentativePlacement> placements = new ArrayList<>();
+		Set<Integer> usedResources = new HashSet<>();
+
+		try {
+			// Main loop. Iterate until there is some plan left to schedule
+			while (!plansInput.isEmpty()) {
+				if (ctx.shouldStop()) {
+					// Leave the plans not yet dispatched pending
+					plansInput.stream().filter(x -> x != null && !ctx.screenedPlans.containsKey(x.getID()))
+							.forEach(ctx.pendingPlans::add);
+					break;
+				}
+				if (pool != null && placements.isEmpty()) {
+					// Compute in parallel the placements of the next plans that can be
+					// placed alone
+					List<Plan> next = new ArrayList<>();
+					for (Plan p : plansInput) {
+						if (p != null && ctx.screenedPlans.containsKey(p.getID())) {
+							continue;
+						}
+						if (next.size() == placementParallelism || p == null || p.hasSyncTask()
+								|| plansWithSamePriority.get(p.getPriority()).size() != 1) {
+							break;
+						}
+						next.add(p);
+					}
+					if (next.size() > 1) {
+						placements.addAll(computePlacements(next, events, workingSolution, pool));
+						usedResources.clear();
+					}
+				}
+
+				// Get the next plan to sort
+				Plan pk = plansInput.get(0);
+				plansInput.remove(0);
+				if (pk == null) {
+					continue;
+				}
+				if (plansWithSamePriority.get(pk.getPriority()).stream()
+						.allMatch(x -> ctx.screenedPlans.containsKey(x.getID()))) {
+					// All the plans of the group have been rejected by the
+					// pre-screen, and are already unscheduled
+					plansInput.removeAll(plansWithSamePriority.remove(pk.getPriority()));
+					continue;
+				}
+
+				PlanDispatchEvent dispatch = new PlanDispatchEvent();
+				dispatch.begin();
+
+				// If pk is the only, in the plan set, to have its priority value,
+				// then proceed by scheduling it
+				if (plansWithSamePriority.get(pk.getPriority()).size() == 1) {
+					// Schedule pk, committing its placement if it has been computed
+					// on the same usage of its resources
+					boolean scheduled;
+					TentativePlacement placement = placements.isEmpty() ? null : placements.remove(0);
+					if (placement != null && placement.getPlan() == pk && placement.isFeasible()
+							&& Collections.disjoint(placement.getResources(), usedResources)) {
+						scheduled = schedulePlan(pk, placement, workingSolution, events, ctx);
+					} else {
+						scheduled = schedulePlan(pk, workingSolution, events, maxResourceCapacity, ctx);
+					}
+					// If pk has been scheduled
+					if (scheduled) {
+						pk.getTasks().forEach(x -> usedResources.add(x.getResourceID()));
+						// Add to the set of scheduled plans
+						ctx.scheduledPlans.add(pk);
+						// Update the last feasible solution
+						ctx.lastFeasibleSolution = cloneSchedule(workingSolution);
+						// If a listener has been registered, notify the last
+						// feasible solution
+						notifyListener(ctx, ctx.lastFeasibleSolution);
+					} else if (ctx.isStopped() && ctx.isSchedulable(pk)) {
+						// The run has been stopped while placing pk
+						ctx.pendingPlans.add(pk);
+					} else {
+						// If pk has not been scheduled, add to the set of
+						// unscheduled plans
+						ctx.unscheduledPlans.add(pk);
+						SchedulerInstrumentation.planRejected();
+					}
+					// Remove the key/value pair from the map of priorities
+					plansWithSamePriority.remove(pk.getPriority());
+
+					if (dispatch.shouldCommit()) {
+						dispatch.planID = pk.getID();
+						dispatch.priority = pk.getPriority();
+						dispatch.groupSize = 1;
+						dispatch.scheduledPlans = scheduled ? 1 : 0;
+						dispatch.commit();
+					}
+				} else {
+					// Get all the plans that have the same priority as the plan to
+					// schedule, pk included
+					List<Plan> group = plansWithSamePriority.remove(pk.getPriority());
+					plansInput.removeAll(group);
+					// The plans rejected by the pre-screen are already unscheduled
+					List<Plan> toSchedule = group.stream().filter(x -> !ctx.screenedPlans.containsKey(x.getID()))
+							.collect(Collectors.toList());
+
+					// Schedule all the plans with the same priority
+					List<Plan> unscheduled = schedulePlanSet(toSchedule, workingSolution, events, maxResourceCapacity,
+							ctx);
+
+					// Remove the unscheduled plans from the working solution, so
+					// that is contains only the successfully scheduled plans
+					for (Plan p : unscheduled) {
+						workingSolution.unSchedule(new ArrayList<>(workingSolution.tasksOf(p.getID())));
+					}
+
+					toSchedule.stream().filter(x -> !unscheduled.contains(x) && !ctx.pendingPlans.contains(x))
+							.forEach(ctx.scheduledPlans::add);
+					ctx.unscheduledPlans.addAll(unscheduled);
+					unscheduled.forEach(x -> SchedulerInstrumentation.planRejected());
+					ctx.lastFeasibleSolution = cloneSchedule(workingSolution);
+					// If a listener has been registered, notify the last feasible
+					// solution
+					notifyListener(ctx, ctx.lastFeasibleSolution);
+
+					if (dispatch.shouldCommit()) {
+						dispatch.planID = pk.getID();
+						dispatch.priority = pk.getPriority();
+						dispatch.groupSize = toSchedule.size();
+						dispatch.scheduledPlans = (int) toSchedule.stream()
+								.filter(x -> !unscheduled.contains(x) && !ctx.pendingPlans.contains(x)).count();
+						dispatch.commit();
+					}
+				}
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Compute in parallel the placements of the given plans on the given
+	 * timeline, which is not modified
+	 */
+	private List<TentativePlacement> computePlacements(List<Plan> plans, Timeline events, Schedule workingSolution,
+			ExecutorService pool) {
+		List<Future<TentativePlacement>> futures = new ArrayList<>();
+		for (Plan p : plans) {
+			futures.add(pool.submit(() -> TentativePlacement.get(p, events, maxResourceCapacity,
+					workingSolution.getWStart(), workingSolution.getWEnd())));
+		}
+		List<TentativePlacement> placements = new ArrayList<>();
+		try {
+			for (Future<TentativePlacement> f : futures) {
+				placements.add(f.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while placing the plans", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error while placing a plan", e.getCause());
+		}
+		return placements;
+	}
+
+	/**
+	 * Check whether the given plan could be scheduled now, in the schedule built
+	 * by the last run, as if it were inserted with {@link #insertPlans(Set)}
+	 * after the plans already scheduled. The plan is not scheduled, and neither
+	 * the timeline nor the schedule are modified; the starting times are the
+	 * ones ALGORITHM 2 would give.<br/>
+	 * <br/>
+	 * For a plan without synchronized tasks, the timeline and the schedule are
+	 * not copied either: the tasks of the plan are placed on the usage of the
+	 * resources in the timeline. The synchronized tasks change the events of the
+	 * timeline that the tasks following them are placed on, so a plan having
+	 * them is placed by ALGORITHM 2 on copies of the timeline and of the
+	 * schedule, in time linear in their size. This method can be called
+	 * concurrently by many threads, but not while the schedule is built or
+	 * modified.
+	 * 
+	 * @param p the plan to check
+	 * @return the tentative starting times of the tasks of p, or the first task
+	 *         that cannot be placed
+	 */
+	public Feasibility checkFeasibility(Plan p) {
+		RunContext ctx = lastRun;
+		if (ctx.lastFeasibleSolution == null) {
+			throw new IllegalStateException("No schedule has been built yet");
+		}
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.CHECK_FEASIBILITY);
+		TentativePlacement placement = TentativePlacement.get(Objects.requireNonNull(p), ctx.events,
+				maxResourceCapacity, ctx.wStart, ctx.wEnd);
+		Feasibility feasibility;
+		// The search for the starting time of the synchronized tasks is the same
+		// as ALGORITHM 2, so is its outcome
+		if (!p.hasSyncTask() || placement.getBlockingTask().filter(p.getSyncTasks()::contains).isPresent()) {
+			feasibility = new Feasibility(placement);
+		} else {
+			feasibility = placeOnCopies(p, ctx);
+		}
+		SchedulerInstrumentation.collect(point);
+		return feasibility;
+	}
+
+	/**
+	 * Place the given plan, whose synchronized tasks can be placed, by ALGORITHM
+	 * 2 on copies of the timeline and of the schedule of the given run
+	 * 
+	 * @param pk
+	 * @param ctx
+	 * @return the starting times of the tasks of pk, or the first task that
+	 *         cannot be placed
+	 */
+	private Feasibility placeOnCopies(Plan pk, RunContext ctx) {
+		Timeline events;
+		try {
+			events = new Timeline(ctx.events);
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Error while copying the timeline", e);
+		}
+		Schedule s = cloneSchedule(ctx.lastFeasibleSolution);
+		Map<Integer, Integer> startingTimes = new LinkedHashMap<>();
+		if (!scheduleSyncTasks(maxResourceCapacity, s, pk.getSyncTasks(), events)) {
+			throw new IllegalStateException("The synchronized tasks of " + pk + " cannot be placed");
+		}
+		s.tasksOf(pk.getID()).forEach(x -> startingTimes.put(x.getTask().getID(), x.getStartingTime()));
+
+		for (Task t : pk.getTasks()) {
+			if (pk.getSyncTasks().contains(t)) {
+				continue;
+			}
+			if (!checkPrecedences(s, t)) {
+				return new Feasibility(pk.getID(), startingTimes, t, Feasibility.Reason.PRECEDENCE);
+			}
+			int sk = getInitialStartingTime(s.getWStart(), s, events, t);
+			if (!scheduleTask(maxResourceCapacity, s, t, events)) {
+				return new Feasibility(pk.getID(), startingTimes, t,
+						checkConstraints(t, sk, s.getWStart(), s.getWEnd()) ? Feasibility.Reason.CAPACITY
+								: Feasibility.Reason.TEMPORAL_WINDOW);
+			}
+			s.tasksOf(pk.getID()).stream().filter(x -> x.getTask().getID() == t.getID())
+					.forEach(x -> startingTimes.put(t.getID(), x.getStartingTime()));
+		}
+		return new Feasibility(pk.getID(), startingTimes, null, null);
+	}
+
+	/**
+	 * Improve the schedule built by the last run until the given time has
+	 * elapsed.
+	 * 
+	 * @param timeout the time allowed to the improvement
+	 * @param unit    the unit of the timeout
+	 * @return the best solution found
+	 * @see #improve(Cancellation)
+	 */
+	public Schedule improve(long timeout, TimeUnit unit) {
+		return improve(Cancellation.withTimeout(timeout, unit));
+	}
+
+	/**
+	 * Improve the schedule built by the last run by large-neighbourhood search,
+	 * until the given token is cancelled or its deadline expires.<br/>
+	 * <br/>
+	 * At each step, a neighbourhood of the current solution is freed: the plans
+	 * having a task in a time slice, or on a subset of the resources, together
+	 * with the scheduled plans that succeed them. The freed plans and the plans
+	 * not scheduled are then dispatched again by ALGORITHM 1, either in the order
+	 * of {@link #sortPlans(List)} or with a few plans without precedences moved
+	 * first. Several neighbourhoods are explored in parallel (see
+	 * {@link #setImprovementParallelism(int)}), and the best one replaces the
+	 * current solution if it schedules more plans of the highest priorities: a
+	 * solution that schedules plans of priority p is better than one scheduling
+	 * less of them, whatever the plans of lower priority; for the same plans of
+	 * each priority, the solution that schedules more plans is better.<br/>
+	 * <br/>
+	 * Each improvement becomes the result of the last run and is notified to the
+	 * listener. The search is random, but with the same parallelism it explores
+	 * the same neighbourhoods. It stops when the token is cancelled, when no plan
+	 * is left to schedule (the plans discarded by the pre-screen are never
+	 * scheduled), or after {@link #setImprovementPatience(int)} consecutive
+	 * steps where no neighbourhood improves the current solution.
+	 * 
+	 * @param cancellation the token that stops the search
+	 * @return the best solution found
+	 */
+	public Schedule improve(Cancellation cancellation) {
+		Objects.requireNonNull(cancellation);
+		RunContext current = lastRun;
+		if (current.lastFeasibleSolution == null) {
+			throw new IllegalStateException("No schedule has been built yet");
+		}
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.IMPROVE);
+		try {
+			current = Improver.get(this).improve(current, cancellation);
+		} finally {
+			SchedulerInstrumentation.collect(point);
+		}
+
+		publish(current, true);
+		return current.lastFeasibleSolution;
+	}
+
+	/**
+	 * Build the schedule with the given number of orderings of the plans: the
+	 * first ones are {@link PlanOrdering#PRIORITY},
+	 * {@link PlanOrdering#EARLIEST_DUE_DATE}, {@link PlanOrdering#LEAST_SLACK}
+	 * and {@link PlanOrdering#MOST_CONSTRAINED}, the others are
+	 * {@link PlanOrdering#RANDOM} with different seeds.
+	 * 
+	 * @param variants the number of orderings
+	 * @return the best solution found
+	 * @see #buildPortfolio(List)
+	 */
+	public Schedule buildPortfolio(int variants) {
+		Utils.requireValidBounds(variants, 1, Integer.MAX_VALUE, "The number of variants must be positive.");
+		PlanOrdering[] defaults = { PlanOrdering.PRIORITY, PlanOrdering.EARLIEST_DUE_DATE, PlanOrdering.LEAST_SLACK,
+				PlanOrdering.MOST_CONSTRAINED };
+		List<PlanOrdering> orderings = new ArrayList<>();
+		for (int i = 0; i < variants; i++) {
+			orderings.add(i < defaults.length ? defaults[i] : PlanOrdering.RANDOM);
+		}
+		return buildPortfolio(orderings);
+	}
+
+	/**
+	 * Build the schedule once for each of the given orderings, concurrently, and
+	 * keep the best solution, as compared by {@link #improve(Cancellation)}. Each
+	 * variant is a run of ALGORITHM 1 on the whole temporal window, with its own
+	 * state, where the plans of each frontier of the precedence graph are sorted
+	 * by the ordering instead of the priority only. The seed of a
+	 * {@link PlanOrdering#RANDOM} ordering is its position in the list.<br/>
+	 * <br/>
+	 * The variants are run on as many threads as the available processors. As
+	 * soon as a variant terminates, if it is better than the variants terminated
+	 * before, it becomes the result of the last run: it is notified to the
+	 * listener and published as snapshot (see {@link #getSnapshot()}), so that it
+	 * can be used before the other variants terminate. Among equivalent
+	 * solutions, the variant that comes first in the list is kept at the end.
+	 * 
+	 * @param orderings the orderings of the variants
+	 * @return the best solution found
 	 */
-	public Set<Plan> getPlans() {
-		return Collections.unmodifiableSet(plans);
+	public Schedule buildPortfolio(List<PlanOrdering> orderings) {
+		if (orderings.isEmpty()) {
+			throw new IllegalArgumentException("No ordering given");
+		}
+		RunContext best = Portfolio.get(this).build(orderings);
+		lastRun = best;
+		publish(best, true);
+		return best.lastFeasibleSolution;
 	}
 
 	/**
-	 * 2 Return the set of scheduled plans within the temporal window
-	 * [W<sub>s</sub>,W<sub>e</sub>]
+	 * Get the comparator of the plans of a frontier for the given ordering
 	 * 
+	 * @param ordering
+	 * @param seed     the seed of a {@link PlanOrdering#RANDOM} ordering
 	 * @return
 	 */
-	public Set<Plan> getScheduledPlans() {
-		return Collections.unmodifiableSet(scheduledPlans);
+	Comparator<Plan> planComparator(PlanOrdering ordering, long seed) {
+		Map<Integer, Long> keys = new HashMap<>();
+		switch (ordering) {
+		case EARLIEST_DUE_DATE:
+			plans.forEach(p -> keys.put(p.getID(),
+					(long) p.getTasks().stream().mapToInt(Task::getDueDate).min().orElse(Integer.MAX_VALUE)));
+			break;
+		case LEAST_SLACK:
+			plans.forEach(p -> keys.put(p.getID(), (long) p.getTasks().stream()
+					.mapToInt(t -> t.getDueDate() - t.getReleaseTime()).min().orElse(Integer.MAX_VALUE)));
+			break;
+		case MOST_CONSTRAINED:
+			Map<Integer, Long> demand = new HashMap<>();
+			plans.forEach(p -> p.getTasks().forEach(t -> demand.merge(t.getResourceID(),
+					(long) t.getProcessingTime() * t.getResourceUsage(), Long::sum)));
+			plans.forEach(p -> keys.put(p.getID(), -p.getTasks().stream()
+					.mapToLong(t -> (long) t.getProcessingTime() * t.getResourceUsage() * demand.get(t.getResourceID()))
+					.sum()));
+			break;
+		case RANDOM:
+			List<Integer> planIDs = plans.stream().map(Plan::getID).sorted().collect(Collectors.toList());
+			Collections.shuffle(planIDs, new Random(seed));
+			for (int i = 0; i < planIDs.size(); i++) {
+				keys.put(planIDs.get(i), (long) i);
+			}
+			break;
+		default:
+			return PLAN_PRIORITY_COMPARATOR;
+		}
+		return Comparator.comparingLong((Plan p) -> keys.get(p.getID())).thenComparing(PLAN_PRIORITY_COMPARATOR)
+				.thenComparingInt(Plan::getID);
 	}
 
 	/**
-	 * Return the set of unscheduled plans within the temporal window
-	 * [W<sub>s</sub>,W<sub>e</sub>]
-	 * 
-	 * @return
+	 * Schedule the given plans, which arrived after the last call of
+	 * {@link #buildSchedule()}, and add them to the plans of this scheduler.<br/>
+	 * <br/>
+	 * The new plans are sorted by precedence and priority, and placed against the
+	 * timeline and the schedule of the last run, without moving the plans already
+	 * committed. The result is the same as a full rebuild only if the new plans
+	 * come, in the order of ALGORITHM 1, after the committed ones: when this is
+	 * not the case, the {@link RebuildPolicy} decides whether to rebuild the whole
+	 * schedule (see {@link #requiresRebuild(Set)}).<br/>
+	 * <br/>
+	 * The timeline and the schedule of the last run are modified in place, so
+	 * this method must not be called while another thread reads the result of
+	 * the last run.
+	 *
+	 * @param newPlans the plans to schedule. Their IDs must be different from the
+	 *                 IDs of the plans of this scheduler.
+	 * @return the last feasible solution, that includes the new plans that have
+	 *         been scheduled
 	 */
-	public Set<Plan> getUnscheduledPlans() {
-		return Collections.unmodifiableSet(unscheduledPlans);
+	public Schedule insertPlans(Set<Plan> newPlans) {
+		for (Plan p : newPlans) {
+			if (plansByID.containsKey(p.getID())) {
+				throw new IllegalArgumentException("Plan #" + p.getID() + " already belongs to the scheduler");
+			}
+		}
+
+		boolean rebuild = requiresRebuild(newPlans);
+		addPlans(newPlans);
+		if (rebuild) {
+			return buildSchedule();
+		}
+		return IncrementalUpdate.get(this).insertPlans(lastRun, newPlans);
 	}
 
 	/**
-	 * Get the maximum allowed capacity of all the resources employed
-	 * 
-	 * @return
+	 * Remove a plan from this scheduler and from the last feasible solution. The
+	 * plan is found by its ID in constant time. The usage of the resources by its
+	 * tasks is subtracted from the timeline, and the events that become empty are
+	 * merged with their predecessors, so the update of the timeline depends on
+	 * the tasks of the plan and on the events they span, not on the size of the
+	 * timeline. The last feasible solution, instead, is copied before the tasks
+	 * are removed, since the previous one may still be read through
+	 * {@link #getSnapshot()} or by the listener: if the plan has been scheduled,
+	 * the cost is linear in the number of tasks scheduled.<br/>
+	 * <br/>
+	 * As for {@link #insertPlans(Set)}, the timeline of the last run is modified
+	 * in place.
+	 *
+	 * @param planID the ID of the plan to cancel
+	 * @param refill if true, the unscheduled plans having a priority not higher
+	 *               than the cancelled plan are scheduled again, in order to use
+	 *               the capacity that has been released
+	 * @return the last feasible solution, without the cancelled plan
 	 */
-	public int getMaxResourceCapacity() {
-		return maxResourceCapacity;
+	public Schedule cancelPlan(int planID, boolean refill) {
+		Plan p = plansByID.get(planID);
+		if (p == null) {
+			throw new IllegalArgumentException("Plan #" + planID + " does not belong to the scheduler");
+		}
+		removePlan(p);
+		return IncrementalUpdate.get(this).cancelPlan(lastRun, p, refill);
 	}
 
 	/**
-	 * Get W<sub>s</sub>
-	 * 
-	 * @return
+	 * Remove the given plan from the plans of this scheduler, but not from the
+	 * runs
 	 */
-	public int getwStart() {
-		return wStart;
+	void removePlan(Plan p) {
+		plans.remove(p);
+		plansByID.remove(p.getID());
 	}
 
 	/**
-	 * Get W<sub>e</sub>
-	 * 
-	 * @return
+	 * @return true if the plan having the given ID belongs to this scheduler
 	 */
-	public int getwEnd() {
-		return wEnd;
+	boolean containsPlan(int planID) {
+		return plansByID.containsKey(planID);
 	}
 
 	/**
-	 * Set the temporal window this scheduler has to operate.
-	 * 
-	 * @param wStart
-	 * @param wEnd
+	 * <b>Rolling horizon</b>: move the temporal window forward, to
+	 * [newWStart, newWEnd], keeping the schedule built so far.<br/>
+	 * <br/>
+	 * What lies entirely before newWStart is frozen and evicted: the events of
+	 * the timeline, the task schedules (written to the spill, if set) and the
+	 * plans whose tasks are all terminated. The tasks running at newWStart keep
+	 * their starting time and their resources. Then, the unscheduled plans are
+	 * scheduled again in the new window, except those that can no longer meet
+	 * their due dates, which are evicted too. So the memory used depends on the
+	 * length of the window, and not on the time elapsed since the first
+	 * window.<br/>
+	 * <br/>
+	 * A full rebuild schedules again all the plans of this scheduler from
+	 * newWStart, including the ones already started: when new plans are inserted
+	 * in this mode, the {@link RebuildPolicy#NEVER} policy should be used.
+	 *
+	 * @param newWStart the new W<sub>s</sub>, not lower than the current one
+	 * @param newWEnd   the new W<sub>e</sub>, not lower than the current one
+	 * @return what has been evicted
+	 * @throws IOException if the evicted task schedules cannot be written to the
+	 *                     spill
 	 */
-	public void setTemporalWindow(int wStart, int wEnd) {
-		if (!events.stream().filter(x -> x.getTime() == this.wStart).findFirst().isPresent()) {
-			events.add(Event.get(wStart, resourcesIDs));
+	public HorizonStep advanceWindow(int newWStart, int newWEnd) throws IOException {
+		RunContext ctx = lastRun;
+		if (ctx.lastFeasibleSolution == null) {
+			throw new IllegalStateException("No schedule has been built yet");
 		}
-
-		if (!events.stream().filter(x -> x.getTime() == this.wEnd).findFirst().isPresent()) {
-			events.add(Event.get(wEnd, resourcesIDs));
+		if (newWStart < ctx.wStart || newWEnd < ctx.wEnd || newWEnd <= newWStart) {
+			throw new IllegalArgumentException("Invalid temporal window [" + Integer.toString(newWStart) + ","
+					+ Integer.toString(newWEnd) + "]: the window can only move forward");
 		}
+		return RollingHorizon.get(this).advance(ctx, newWStart, newWEnd);
 	}
 
 	/**
-	 * <b>ALGORITHM 1</b>
+	 * Check if {@link #insertPlans(Set)} rebuilds the whole schedule to include
+	 * the given plans. A rebuild is required if:
+	 * <ul>
+	 * <li>no schedule has been built yet, or the optimal W<sub>e</sub> is
+	 * calculated (the window of the last run may be too small for the new
+	 * plans);</li>
+	 * <li>the last run has been stopped before dispatching all the plans (see
+	 * {@link #buildSchedule(Cancellation)});</li>
+	 * <li>a new plan precedes a plan of this scheduler, which has been
+	 * dispatched before it;</li>
+	 * <li>the rebuild policy is {@link RebuildPolicy#ALWAYS}, or it is
+	 * {@link RebuildPolicy#ON_PRIORITY_INVERSION} and a new plan would not be
+	 * dispatched, by ALGORITHM 1 on all the plans, after every plan already
+	 * dispatched: that is, if it has a priority higher than or equal to a plan
+	 * already dispatched (the plans having the same priority are scheduled
+	 * together by ALGORITHM 3), or if ALGORITHM 5 sorts it before a plan already
+	 * dispatched, of a later frontier of the precedence graph. The plans are
+	 * sorted again only in the latter case, and only if some plan has a
+	 * successor.</li>
+	 * </ul>
 	 *
+	 * @param newPlans
 	 * @return
 	 */
-	public Schedule buildSchedule() {
-		// Create the empty schedules
-		Schedule workingSolution = Schedule.get(wStart, wEnd);
-		Schedule lastFeasibleSolution = Schedule.get(wStart, wEnd);
+	public boolean requiresRebuild(Set<Plan> newPlans) {
+		return IncrementalUpdate.get(this).requiresRebuild(lastRun, newPlans);
+	}
 
-		if (plans.isEmpty()) {
-			// System.err.println("Warning: No plan to schedule. Return an empty
-			// solution.");
-			return workingSolution;
+	/**
+	 * Search for the smallest W<sub>e</sub> that allows to schedule the same
+	 * plans scheduled by the given run.<br/>
+	 * <br/>
+	 * The search interval is bounded above by the accomplishment date of the last
+	 * task of the given run, and below by the earliest accomplishment date of the
+	 * scheduled tasks and by the work to be executed on each resource: if the
+	 * bounds are equal, no other run is needed. Otherwise, the values of
+	 * W<sub>e</sub> in the interval are tried with a binary search (or, if
+	 * {@link #optimalWeParallelism} &gt; 1, with a search that tries that many
+	 * values in parallel at each step), so the search assumes that a larger
+	 * window never schedules fewer plans. All the runs share the sorted plans.
+	 * 
+	 * @param reference   the run on the whole temporal window
+	 * @param sortedPlans the plans to schedule, sorted by
+	 *                    {@link #sortPlans(List)}
+	 * @param screened    the plans rejected by the pre-screen, which cannot be
+	 *                    scheduled in a smaller window either
+	 * @return the run having the smallest W<sub>e</sub> found
+	 */
+	private RunContext searchOptimalWe(RunContext reference, List<Plan> sortedPlans,
+			Map<Plan, Feasibility.Reason> screened) {
+		Set<Integer> target = reference.scheduledPlans.stream().map(Plan::getID).collect(Collectors.toSet());
+		if (target.isEmpty()) {
+			return reference;
 		}
-
-		// Create a copy of the set of plans to schedule
-		// --
-		// TreeList for fast add/remove operations! Why not an HashSet? Because
-		// with Set collection the order of elements is not guarantee.
-		List<Plan> plansInput = new TreeList<>(plans);
-
-		// Sort the plans according to the precedences (if any), and also
-		// according to their priority value
-		plansInput = sortPlans(plansInput.stream().map(x -> (ExecutableNode) x).collect(Collectors.toList()));
-
-		// Create a map containing, for each priority as key value, a list of
-		// plans having each one the priority value as key. This is used later
-		// to schedule plans that have the same priority value.
-		Map<Integer, Integer> prioritiesCountMap = new HashMap<>();
-
-		// Why a TreeList here? Because it provides better performance in
-		// add/remove operations compared to ArrayList. Add/remove operations
-		// takes
-		// O(log n) time with a TreeList.
-		Map<Integer, TreeList<Plan>> plansWithSamePriority = new HashMap<>();
-		plansInput.forEach(x -> {
-			if (!prioritiesCountMap.containsKey(x.getPriority())) {
-				prioritiesCountMap.put(x.getPriority(), 1);
-			} else {
-				int newVal = prioritiesCountMap.get(x.getPriority()) + 1;
-				prioritiesCountMap.put(x.getPriority(), newVal);
-
-				if (newVal > 1) {
-					if (!plansWithSamePriority.containsKey(x.getPriority())) {
-						plansWithSamePriority.put(x.getPriority(), new TreeList<>());
-					}
-					plansWithSamePriority.get(x.getPriority()).add(x);
-				}
-			}
-		});
-
-		// Main loop. Iterate until there is some plan left to schedule
-		while (!plansInput.isEmpty()) {
-			// Get the next plan to sort
-			Plan pk = plansInput.get(0);
-			plansInput.remove(0);
-			if (pk == null) {
-				continue;
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SEARCH_OPTIMAL_WE);
+
+		// Upper bound: the accomplishment date of the last scheduled task
+		int hi = reference.lastFeasibleSolution.taskScheduleView().stream()
+				.mapToInt(x -> x.getStartingTime() + x.getTask().getProcessingTime()).max().getAsInt();
+		// Lower bound: no task can terminate before its earliest accomplishment
+		// date, and no resource can execute its work in less time
+		int lo = wStart + 1;
+		Map<Integer, Long> work = new HashMap<>();
+		for (Plan p : reference.scheduledPlans) {
+			for (Task t : p.getTasks()) {
+				lo = Math.max(lo, Math.max(wStart, t.getReleaseTime()) + t.getProcessingTime());
+				work.merge(t.getResourceID(), (long) t.getProcessingTime() * t.getResourceUsage(), Long::sum);
 			}
+		}
+		for (long w : work.values()) {
+			lo = (int) Math.max(lo, wStart + (w + maxResourceCapacity - 1) / maxResourceCapacity);
+		}
 
-			// System.err.println("Scheduling plan #" +
-			// Integer.toString(pk.getID()));
-
-			// If pk is the only, in the plan set, to have its priority value,
-			// then proceed by scheduling it
-			if (prioritiesCountMap.get(pk.getPriority()) == 1) {
-				// Schedule pk
-				boolean scheduled = schedulePlan(pk, workingSolution, events, maxResourceCapacity);
-				// If pk has been scheduled
-				if (scheduled) {
-					// Add to the set of scheduled plans
-					scheduledPlans.add(pk);
-					try {
-						// Update the last feasible solution
-						lastFeasibleSolution = (Schedule) workingSolution.clone();
-					} catch (CloneNotSupportedException e) {
-						e.printStackTrace();
-					}
-					// If a listener has been registered, notify the last
-					// feasible solution
-					if (listener.isPresent()) {
-						listener.get().solutionGenerated(lastFeasibleSolution);
-					}
+		// The probes stop with the reference run, if they take too long
+		Cancellation cancellation = reference.getCancellation();
+		RunContext best = reference;
+		ExecutorService pool = optimalWeParallelism > 1 ? Executors.newFixedThreadPool(optimalWeParallelism)
+				: null;
+		try {
+			if (hi < wEnd) {
+				RunContext ctx = probe(hi, sortedPlans, screened, cancellation);
+				if (sameScheduledPlans(ctx, target)) {
+					best = ctx;
 				} else {
-					// If pk has not been scheduled, add to the set of
-					// unscheduled plans
-					unscheduledPlans.add(pk);
+					lo = hi + 1;
+					hi = wEnd;
 				}
-				// Remove the key/value pair from the map of priorities
-				prioritiesCountMap.remove(pk.getPriority());
 			} else {
-				// Get all the plans that have the same priority as the plan to
-				// schedule
-				List<Plan> toSchedule = new ArrayList<>();
-				toSchedule.addAll(plansWithSamePriority.get(pk.getPriority()));
-				plansInput.removeAll(toSchedule);
-
-				// Schedule all the plans with the same priority
-				List<Plan> unscheduled = schedulePlanSet(toSchedule, workingSolution, events, maxResourceCapacity);
-
-				// Remove the unscheduled plans from the working solution, so
-				// that is contains only the successfully scheduled plans
-				for (Plan p : unscheduled) {
-					List<TaskSchedule> toRemove = workingSolution.taskSchedules().stream()
-							.filter(x -> ((Task) x.getTask()).getPlanID() == p.getID()).collect(Collectors.toList());
-					workingSolution.unSchedule(toRemove);
+				hi = wEnd;
+			}
+			lo = Math.min(lo, hi);
+
+			// Invariant: hi schedules the target plans, while the values below
+			// lo do not
+			while (lo < hi && !cancellation.check().isPresent()) {
+				// Values to try, evenly spaced in [lo, hi)
+				int n = Math.min(optimalWeParallelism, hi - lo);
+				List<Integer> values = new ArrayList<>();
+				for (int i = 1; i <= n; i++) {
+					values.add((int) (lo + (long) (hi - lo) * i / (n + 1)));
 				}
 
-				unscheduled.forEach(x -> prioritiesCountMap.remove(x.getPriority()));
-				unscheduledPlans.addAll(unscheduled);
-				plansWithSamePriority.remove(pk.getPriority());
-				try {
-					lastFeasibleSolution = (Schedule) workingSolution.clone();
-				} catch (CloneNotSupportedException e) {
-					e.printStackTrace();
+				List<RunContext> runs = new ArrayList<>();
+				if (pool == null) {
+					runs.add(probe(values.get(0), sortedPlans, screened, cancellation));
+				} else {
+					List<Future<RunContext>> futures = new ArrayList<>();
+					for (int we : values) {
+						futures.add(pool.submit(() -> probe(we, sortedPlans, screened, cancellation)));
+					}
+					for (Future<RunContext> f : futures) {
+						runs.add(f.get());
+					}
 				}
-				// If a listener has been registered, notify the last feasible
-				// solution
-				if (listener.isPresent()) {
-					listener.get().solutionGenerated(lastFeasibleSolution);
+
+				for (int i = 0; i < n; i++) {
+					if (runs.get(i).isStopped()) {
+						// The probe has not dispatched all the plans
+						break;
+					}
+					if (sameScheduledPlans(runs.get(i), target)) {
+						hi = values.get(i);
+						best = runs.get(i);
+						break;
+					}
+					lo = values.get(i) + 1;
 				}
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while searching for the optimal We", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error while searching for the optimal We", e.getCause());
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+			SchedulerInstrumentation.collect(point);
 		}
 
-		// At the end, if user want to "reduce" the temporal window so that it
-		// fits perfectly the scheduled events, the last event is set to the
-		// last that contains *something*.
-		if (calculateOptimalWe) {
-			Event last = events.stream().max(Event.getComparator()).get();
-			if (last.taskStartingHere().isEmpty() && last.taskTerminatingHere().isEmpty()) {
-				events.remove(last);
-			}
+		// The probes are not notified: notify the chosen solution. It becomes the
+		// last run, so its later changes are notified.
+		if (best != reference) {
+			best.probe = false;
+			notifyListener(reference, best.lastFeasibleSolution);
+		}
+		return best;
+	}
+
+	/**
+	 * Schedule the plans within [W<sub>s</sub>, we], without notifying the
+	 * listener
+	 */
+	private RunContext probe(int we, List<Plan> sortedPlans, Map<Plan, Feasibility.Reason> screened,
+			Cancellation cancellation) {
+		RunContext ctx = RunContext.get(wStart, we, resourcesIDs);
+		ctx.probe = true;
+		ctx.setCancellation(cancellation);
+		reject(ctx, screened);
+		buildSchedule(ctx, sortedPlans);
+		return ctx;
+	}
+
+	private static boolean sameScheduledPlans(RunContext ctx, Set<Integer> planIDs) {
+		return ctx.scheduledPlans.size() == planIDs.size()
+				&& ctx.scheduledPlans.stream().allMatch(x -> planIDs.contains(x.getID()));
+	}
+
+	/**
+	 * Copy the given schedule
+	 * 
+	 * @param s
+	 * @return
+	 */
+	Schedule cloneSchedule(Schedule s) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.CLONE_SCHEDULE);
+		SchedulerInstrumentation.cloneMade();
+		Schedule cloned = null;
+		try {
+			cloned = (Schedule) s.clone();
+		} catch (CloneNotSupportedException e) {
+			e.printStackTrace();
 		}
+		SchedulerInstrumentation.collect(point);
+		return cloned;
+	}
 
-		events.forEach(x -> System.err.println(x));
+	/**
+	 * Copy the given set of events
+	 * 
+	 * @param events
+	 * @return
+	 */
+	private TreeSet<Event> cloneEvents(TreeSet<Event> events) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.CLONE_EVENTS);
+		SchedulerInstrumentation.cloneMade();
+		TreeSet<Event> cloned = EventUtils.cloneSet(events);
+		SchedulerInstrumentation.collect(point);
+		return cloned;
+	}
 
-		return lastFeasibleSolution;
+	/**
+	 * Notify the given feasible solution to the listener, if a listener has been
+	 * registered and the run is not a probe
+	 * 
+	 * @param ctx
+	 * @param solution
+	 */
+	void notifyListener(RunContext ctx, Schedule solution) {
+		if (!ctx.probe) {
+			snapshot = ScheduleSnapshot.get(solution, ctx.unscheduledPlans, plans.size(), false);
+		}
+		if (listener.isPresent() && !ctx.probe) {
+			EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.NOTIFY_LISTENER);
+			listener.get().solutionGenerated(solution);
+			SchedulerInstrumentation.collect(point);
+		}
 	}
 
 	/**
@@ -342,6 +1778,19 @@ public class Scheduler {
 	 */
 	public List<Plan> schedulePlanSet(final List<Plan> plans, Schedule workingSolution, TreeSet<Event> events,
 			int maxResourceCapacity) {
+		return schedulePlanSet(plans, workingSolution, events, maxResourceCapacity,
+				RunContext.get(workingSolution.getWStart(), workingSolution.getWEnd(), resourcesIDs));
+	}
+
+	/**
+	 * <b>ALGORITHM 3</b> using the given context as state of the run.
+	 */
+	private List<Plan> schedulePlanSet(final List<Plan> plans, Schedule workingSolution, TreeSet<Event> events,
+			int maxResourceCapacity, RunContext ctx) {
+		if (beamWidth > 1) {
+			return beamSchedulePlanSet(plans, workingSolution, events, maxResourceCapacity, ctx);
+		}
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SCHEDULE_PLAN_SET);
 		// The list of unscheduled plans.
 		List<Plan> unscheduled = new ArrayList<>();
 		// At each iteration of the algorithm, this var contains the value of
@@ -353,57 +1802,59 @@ public class Scheduler {
 		List<Plan> plansList = new ArrayList<>(plans);
 
 		// Iterate until there is some plan left to schedule
+		int iteration = 0;
 		while (!plansList.isEmpty()) {
 			int bestIdleTime = Integer.MAX_VALUE;
 			bestPlan = Optional.empty();
 
 			// Iterate each plan
 			for (Plan p : plansList) {
-				Schedule S = null;
-				TreeSet<Event> E = null;
-
-				try {
-					S = (Schedule) workingSolution.clone();
-				} catch (CloneNotSupportedException e) {
-					e.printStackTrace();
+				if (ctx.shouldStop()) {
+					break;
 				}
-				E = EventUtils.cloneSet(events);
+				TrialOutcomeEvent trial = new TrialOutcomeEvent();
+				trial.begin();
+				SchedulerInstrumentation.trialRun();
+				Schedule S = cloneSchedule(workingSolution);
+				TreeSet<Event> E = cloneEvents(events);
 				// Try to schedule the plan p
-				boolean scheduled = schedulePlan(p, S, E, maxResourceCapacity);
+				boolean scheduled = schedulePlan(p, S, E, maxResourceCapacity, ctx);
+
+				trial.planID = p.getID();
+				trial.iteration = iteration;
+				trial.scheduled = scheduled;
 
 				// If p has been scheduled
 				if (scheduled) {
-					// For each event e that contains a task of p in S(e),
-					// calculate the difference t(e) - t(pred_e) where pred_e is
-					// the predecessor of e
-					int idleTime = 0;
-					for (Event e : E) {
-						Optional<Task> t = e.taskStartingHere().stream().filter(x -> x.getPlanID() == p.getID())
-								.findFirst();
-						Optional<Event> pred_e = EventUtils.getPreviousEvent(e, E, false);
-						if (t.isPresent() && pred_e.isPresent()) {
-							// Update the idle time value
-							idleTime += e.getTime() - pred_e.get().getTime();
-						}
-					}
+					int idleTime = idleTime(p, S, E);
 
 					// Update the best idle time value, that is, the minimum
 					// value.
 					if (idleTime < bestIdleTime) {
 						bestPlan = Optional.of(p);
 						bestIdleTime = idleTime;
-						// System.err.println("Best idle time: " + bestIdleTime
-						// + " for plan #" + p.getID());
+						trial.best = true;
 					}
+					trial.idleTime = idleTime;
+					ctx.setTrialIdleTime(p, idleTime);
 				} else {
 					toDelete = Optional.of(p);
 				}
-
+				trial.commit();
 			}
+			if (ctx.isStopped()) {
+				break;
+			}
+			iteration++;
 
 			// Schedule the plan with the minimum idle time
 			if (bestPlan.isPresent()) {
-				schedulePlan(bestPlan.get(), workingSolution, events, maxResourceCapacity);
+				schedulePlan(bestPlan.get(), workingSolution, events, maxResourceCapacity, ctx);
+				if (ctx.isStopped()) {
+					// The run has been stopped while placing the plan, which has
+					// been removed
+					break;
+				}
 				plansList.remove(bestPlan.get());
 			} else {
 				// Otherwise, just delete it from the set of plans
@@ -413,9 +1864,186 @@ public class Scheduler {
 			}
 		}
 
+		// The plans not placed yet, if the run has been stopped, are left
+		// pending
+		if (ctx.isStopped()) {
+			ctx.pendingPlans.addAll(plansList);
+		}
+		SchedulerInstrumentation.collect(point);
+		return unscheduled;
+	}
+
+	/**
+	 * Get the idle time of a plan scheduled in the given solution: for each event
+	 * e that contains a task of p in S(e), the difference t(e) - t(pred_e) where
+	 * pred_e is the predecessor of e
+	 */
+	private static int idleTime(Plan p, Schedule S, TreeSet<Event> E) {
+		int idleTime = 0;
+		Set<Integer> startingTimes = S.tasksOf(p.getID()).stream().map(x -> x.getStartingTime())
+				.collect(Collectors.toSet());
+		for (int st : startingTimes) {
+			Event pred_e = E.lower(Event.get(st, Collections.emptySet()));
+			if (pred_e != null) {
+				// Update the idle time value
+				idleTime += st - pred_e.getTime();
+			}
+		}
+		return idleTime;
+	}
+
+	/**
+	 * <b>ALGORITHM 3</b> as a beam search of width {@link #getBeamWidth()}. The
+	 * partial schedules are {@link BeamState}s, expanded in parallel; the plans
+	 * of the best complete schedule are then placed in the working solution, in
+	 * the order in which they have been placed by the search.<br/>
+	 * <br/>
+	 * If the run is stopped, the plans of the best partial schedule found are
+	 * placed anyway, and the plans left are pending.
+	 */
+	private List<Plan> beamSchedulePlanSet(final List<Plan> plans, Schedule workingSolution, TreeSet<Event> events,
+			int maxResourceCapacity, RunContext ctx) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SCHEDULE_PLAN_SET);
+		// The plans already found not schedulable in this run are not tried
+		List<Plan> unscheduled = plans.stream().filter(x -> !ctx.isSchedulable(x)).collect(Collectors.toList());
+		List<Plan> candidates = plans.stream().filter(ctx::isSchedulable).collect(Collectors.toList());
+		List<BeamState> beam = Collections.singletonList(BeamState.root(candidates.size()));
+		// The best complete schedule of the set
+		Optional<BeamState> best = Optional.empty();
+		// The best partial schedule, if the run is stopped
+		BeamState reached = beam.get(0);
+
+		int parallelism = Math.min(beamWidth, Runtime.getRuntime().availableProcessors());
+		ExecutorService pool = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+		try {
+			while (!beam.isEmpty() && !ctx.shouldStop()) {
+				List<List<BeamState>> expansions = new ArrayList<>();
+				if (pool == null) {
+					for (BeamState s : beam) {
+						expansions.add(expand(s, candidates, workingSolution, events, maxResourceCapacity,
+								ctx.getCancellation()));
+					}
+				} else {
+					List<Future<List<BeamState>>> futures = new ArrayList<>();
+					for (BeamState s : beam) {
+						futures.add(pool.submit(() -> expand(s, candidates, workingSolution, events, maxResourceCapacity,
+								ctx.getCancellation())));
+					}
+					for (Future<List<BeamState>> f : futures) {
+						expansions.add(f.get());
+					}
+				}
+				if (ctx.shouldStop()) {
+					break;
+				}
+
+				List<BeamState> children = new ArrayList<>();
+				for (List<BeamState> expansion : expansions) {
+					for (BeamState child : expansion) {
+						if (!child.isTerminal()) {
+							children.add(child);
+						} else if (!best.isPresent() || BeamState.ORDER.compare(child, best.get()) < 0) {
+							best = Optional.of(child);
+						}
+					}
+				}
+				// Keep the best states that may still improve the best complete
+				// schedule. The sort is stable, so the ties are broken in the
+				// order of the plans, as with a single state.
+				final Optional<BeamState> bound = best;
+				children.removeIf(x -> bound.isPresent() && !x.canImprove(bound.get()));
+				children.sort(BeamState.ORDER);
+				beam = children.subList(0, Math.min(beamWidth, children.size()));
+				if (!beam.isEmpty()) {
+					reached = beam.get(0);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while scheduling the set of plans", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error while scheduling the set of plans", e.getCause());
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+		}
+
+		BeamState chosen = best.isPresent() && BeamState.ORDER.compare(best.get(), reached) <= 0 ? best.get()
+				: reached;
+		// Place the plans of the chosen state. The run may have been stopped, so
+		// they are placed with a context of their own, which is never stopped.
+		RunContext commit = RunContext.get(workingSolution.getWStart(), workingSolution.getWEnd(), resourcesIDs);
+		for (Plan p : chosen.placedPlans()) {
+			if (!schedulePlan(p, workingSolution, events, maxResourceCapacity, commit)) {
+				throw new IllegalStateException("Cannot place again " + p);
+			}
+			ctx.setTrialIdleTime(p, idleTime(p, workingSolution, events));
+		}
+		for (Plan p : chosen.failedPlans()) {
+			ctx.setUnschedulable(p);
+			unscheduled.add(p);
+		}
+		if (!chosen.isTerminal()) {
+			ctx.pendingPlans.addAll(chosen.remainingPlans(candidates));
+		}
+		SchedulerInstrumentation.collect(point);
 		return unscheduled;
 	}
 
+	/**
+	 * Expand a state of the beam search of ALGORITHM 3: its schedule is rebuilt
+	 * on a copy of the given solution, then each plan left is tried on a copy of
+	 * it.
+	 * 
+	 * @return the states that follow the given one, or the empty list if the run
+	 *         has been stopped
+	 */
+	private List<BeamState> expand(BeamState state, List<Plan> plans, Schedule workingSolution,
+			TreeSet<Event> events, int maxResourceCapacity, Cancellation cancellation) {
+		RunContext trials = RunContext.get(workingSolution.getWStart(), workingSolution.getWEnd(), resourcesIDs);
+		trials.setCancellation(cancellation);
+		Schedule S = cloneSchedule(workingSolution);
+		TreeSet<Event> E = cloneEvents(events);
+		for (Plan p : state.placedPlans()) {
+			if (!schedulePlan(p, S, E, maxResourceCapacity, trials)) {
+				if (trials.isStopped()) {
+					return Collections.emptyList();
+				}
+				throw new IllegalStateException("Cannot place again " + p);
+			}
+		}
+
+		List<Plan> placed = new ArrayList<>();
+		List<Integer> idleTimes = new ArrayList<>();
+		List<Plan> failed = new ArrayList<>();
+		for (Plan p : state.remainingPlans(plans)) {
+			if (trials.shouldStop()) {
+				return Collections.emptyList();
+			}
+			SchedulerInstrumentation.trialRun();
+			Schedule S1 = cloneSchedule(S);
+			TreeSet<Event> E1 = cloneEvents(E);
+			if (schedulePlan(p, S1, E1, maxResourceCapacity, trials)) {
+				placed.add(p);
+				idleTimes.add(idleTime(p, S1, E1));
+			} else if (trials.isStopped()) {
+				return Collections.emptyList();
+			} else {
+				failed.add(p);
+			}
+		}
+
+		if (placed.isEmpty()) {
+			return Collections.singletonList(state.drop(failed));
+		}
+		List<BeamState> children = new ArrayList<>(placed.size());
+		for (int i = 0; i < placed.size(); i++) {
+			children.add(state.place(placed.get(i), idleTimes.get(i), failed));
+		}
+		return children;
+	}
+
 	/**
 	 * <b>ALGORITHM 2</b> Schedule the plan given as input into the
 	 * 
@@ -424,45 +2052,109 @@ public class Scheduler {
 	 * @param lastFeasibleSolution
 	 * @param events
 	 * @param maxResourceCapacity
+	 * @param ctx the state of the current run
 	 */
 	private boolean schedulePlan(Plan pk, Schedule workingSolution, TreeSet<Event> events,
-			final int maxResourceCapacity) {
+			final int maxResourceCapacity, RunContext ctx) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SCHEDULE_PLAN);
+		ctx.resetPlacedTasks(pk);
+		boolean stopped = false;
+		// Record the events added for pk, so that the timeline can be restored
+		// if pk is not scheduled
+		Timeline timeline = events instanceof Timeline ? (Timeline) events : null;
+		if (timeline != null) {
+			timeline.startRecording();
+		}
 
-		if (pk.hasSyncTask()) {
-			if (!scheduleSyncTasks(maxResourceCapacity, workingSolution, pk.getSyncTasks(), events)) {
-				pk.setSchedulable(false);
+		if (ctx.isSchedulable(pk) && pk.hasSyncTask()) {
+			if (scheduleSyncTasks(maxResourceCapacity, workingSolution, pk.getSyncTasks(), events)) {
+				pk.getSyncTasks().forEach(x -> ctx.taskPlaced(pk));
+			} else {
+				ctx.setUnschedulable(pk);
 			}
 		}
 
 		// Loop each task t within the plan pk
-		if (pk.isSchedulable()) {
+		if (ctx.isSchedulable(pk)) {
 			List<Task> remainingTasks = pk.getTasks().stream().filter(x -> !pk.getSyncTasks().contains(x))
 					.collect(Collectors.toList());
 
 			for (Task t : remainingTasks) {
+				// Stop between two tasks, if the run must stop
+				if (ctx.shouldStop()) {
+					stopped = true;
+					break;
+				}
 				// Check precedence constraints
 				if (!checkPrecedences(workingSolution, t)) {
-					pk.setSchedulable(false);
+					ctx.setUnschedulable(pk);
 					break;
 				}
 
 				if (!scheduleTask(maxResourceCapacity, workingSolution, t, events)) {
-					pk.setSchedulable(false);
+					ctx.setUnschedulable(pk);
 					break;
 				}
+				ctx.taskPlaced(pk);
 			}
 		}
+		List<Event> added = timeline != null ? timeline.stopRecording() : Collections.emptyList();
 		// At this point, each task of pk has been scheduled
-		if (pk.isSchedulable()) {
-			return true;
-		} else {
-			// pk is NOT schedulable: take all its tasks and remove them
-			// from the solution
-			List<TaskSchedule> toRemove = workingSolution.taskSchedules().stream()
-					.filter(x -> ((Task) x.getTask()).getPlanID() == pk.getID()).collect(Collectors.toList());
+		if (stopped || !ctx.isSchedulable(pk)) {
+			// pk is NOT schedulable (or the run has been stopped): take all its
+			// tasks and remove them from the solution, and release the
+			// resources they use in the timeline
+			List<TaskSchedule> toRemove = new ArrayList<>(workingSolution.tasksOf(pk.getID()));
 			workingSolution.unSchedule(toRemove);
-			return false;
+			if (timeline != null) {
+				// Remove the events added for pk too, so that the attempt does not
+				// change the placement of the plans that follow
+				EventUtils.release(toRemove, events);
+				added.forEach(events::remove);
+			} else {
+				EventUtils.removeFromTimeline(toRemove, events, workingSolution.getWStart(), workingSolution.getWEnd());
+			}
+		}
+		SchedulerInstrumentation.collect(point);
+		return !stopped && ctx.isSchedulable(pk);
+	}
+
+	/**
+	 * <b>ALGORITHM 2</b> for a plan whose placement has been computed on a
+	 * timeline where its resources have the same usage as in the given one: the
+	 * tasks are added at their starting times, without searching for them.
+	 * 
+	 * @param pk
+	 * @param placement       the placement of pk
+	 * @param workingSolution
+	 * @param events
+	 * @param ctx             the state of the current run
+	 */
+	private boolean schedulePlan(Plan pk, TentativePlacement placement, Schedule workingSolution,
+			NavigableSet<Event> events, RunContext ctx) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SCHEDULE_PLAN);
+		ctx.resetPlacedTasks(pk);
+		for (Task t : pk.getTasks()) {
+			// The event of the initial starting time is created as when
+			// searching for the starting time
+			Event e = getPreviousEvent(placement.getInitialStartingTime(t), events);
+			if (!events.contains(e)) {
+				events.add(e);
+				SchedulerInstrumentation.eventCreated();
+			}
+			int startingTime = placement.getStartingTime(t);
+			e = events.floor(Event.get(startingTime, Collections.emptySet()));
+			if (e.getTime() != startingTime) {
+				throw new IllegalStateException("No event at the starting time " + startingTime + " of " + t);
+			}
+			Event lastEvent = EventUtils.getLastEvent(workingSolution.getWEnd(), events).get();
+			Event end = events.ceiling(Event.get(startingTime + t.getProcessingTime(), Collections.emptySet()));
+			addTask(workingSolution, t, events, e, end == null || end.getTime() > lastEvent.getTime() ? lastEvent : end,
+					0);
+			ctx.taskPlaced(pk);
 		}
+		SchedulerInstrumentation.collect(point);
+		return true;
 	}
 
 	/**
@@ -475,13 +2167,15 @@ public class Scheduler {
 	 */
 	private boolean scheduleSyncTasks(final int maxResourceCapacity, Schedule s, List<Task> t,
 			NavigableSet<Event> events) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SCHEDULE_SYNC_TASKS);
 
 		// Take the initial starting time as the maximum starting time available
 		// for each task
-		int sk = t.stream().mapToInt(x -> getInitialStartingTime(s.getWStart(), events, x)).max().getAsInt();
+		int sk = t.stream().mapToInt(x -> getInitialStartingTime(s.getWStart(), s, events, x)).max().getAsInt();
 		Event e = getPreviousEvent(sk, events);
 		if (!events.contains(e)) {
 			events.add(e);
+			SchedulerInstrumentation.eventCreated();
 		}
 
 		Event f = e;
@@ -490,6 +2184,7 @@ public class Scheduler {
 		try {
 			lastEvent = EventUtils.getLastEvent(s.getWEnd(), events).get();
 		} catch (NoSuchElementException ex) {
+			SchedulerInstrumentation.collect(point);
 			throw new NoSuchElementException("No event for We found.");
 		}
 
@@ -498,7 +2193,9 @@ public class Scheduler {
 		// the tasks can be scheduled. For this reason, its initial value is set
 		// as the maximum processing time of the tasks.
 		int mi = t.stream().mapToInt(x -> x.getProcessingTime()).max().getAsInt();
+		int eventsWalked = 0;
 		while (mi > 0 && !f.equals(lastEvent)) {
+			eventsWalked++;
 
 			// For each tested event e, keep the number of schedulable tasks in
 			// e
@@ -515,6 +2212,8 @@ public class Scheduler {
 				if (capacityAte <= maxResourceCapacity
 						&& checkConstraints(task, e.getTime(), s.getWStart(), s.getWEnd())) {
 					placedTasks++;
+				} else if (capacityAte > maxResourceCapacity) {
+					traceCapacityRejection(task, f, maxResourceCapacity);
 				}
 			}
 
@@ -538,7 +2237,10 @@ public class Scheduler {
 				.count();
 
 		if (feasibleTaskCount < t.size()) {
-			t.forEach(x -> events.forEach(ev -> ev.removePlan(x.getPlanID())));
+			for (Task task : t) {
+				traceTaskPlacement(task, true, false, te, eventsWalked);
+			}
+			SchedulerInstrumentation.collect(point);
 			return false;
 		}
 
@@ -558,6 +2260,7 @@ public class Scheduler {
 				newEvent.setResourceCapacities(f.resourceCapacity());
 				f.addToC(task);
 				events.add(newEvent);
+				SchedulerInstrumentation.eventCreated();
 				f = newEvent;
 			} else {
 				Event predf = EventUtils.getPreviousEvent(f, events).get();
@@ -565,22 +2268,26 @@ public class Scheduler {
 				newEvent.setResourceCapacities(predf.resourceCapacity());
 				newEvent.addToC(task);
 				events.add(newEvent);
+				SchedulerInstrumentation.eventCreated();
 				f = newEvent;
 			}
 
 			// update the resource usage
 			Event predf = EventUtils.getPreviousEvent(f, events).get();
-			for (Event ev : events) {
-				if (ev.getTime() >= e.getTime() && ev.getTime() <= predf.getTime()) {
-					ev.increaseResourceUsage(task.getResourceID());
-				}
+			for (Event ev : events.subSet(e, true, predf, true)) {
+				ev.increaseResourceUsage(task.getResourceID());
 			}
+			Timeline.usageChanged(events, task.getResourceID(), e, predf);
+			traceTaskPlacement(task, true, true, te, eventsWalked);
 		}
+		SchedulerInstrumentation.collect(point);
 		return true;
 	}
 
 	/**
-	 * <b>ALGORITHM 4</b> Schedule the task t
+	 * <b>ALGORITHM 4</b> Schedule the task t. If t cannot be scheduled, it is
+	 * added neither to the solution nor to the timeline, and the tasks of its
+	 * plan already placed are removed by the caller.
 	 * 
 	 * @param maxResourceCapacity
 	 * @param s
@@ -588,11 +2295,13 @@ public class Scheduler {
 	 * @param events
 	 * @return
 	 */
-	private boolean scheduleTask(final int maxResourceCapacity, Schedule s, Task t, NavigableSet<Event> events) {
-		int sk = getInitialStartingTime(s.getWStart(), events, t);
+	boolean scheduleTask(final int maxResourceCapacity, Schedule s, Task t, NavigableSet<Event> events) {
+		EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.SCHEDULE_TASK);
+		int sk = getInitialStartingTime(s.getWStart(), s, events, t);
 		Event e = getPreviousEvent(sk, events);
 		if (!events.contains(e)) {
 			events.add(e);
+			SchedulerInstrumentation.eventCreated();
 		}
 
 		Event f = e;
@@ -602,36 +2311,60 @@ public class Scheduler {
 		try {
 			lastEvent = EventUtils.getLastEvent(s.getWEnd(), events).get();
 		} catch (NoSuchElementException ex) {
-			// System.err.println("Error: no final event found.");
+			traceTaskPlacement(t, false, false, e.getTime(), 0);
+			SchedulerInstrumentation.collect(point);
 			return false;
 		}
 
+		int eventsWalked = 0;
 		while (mi > 0 && !f.equals(lastEvent)) {
-			if (EventUtils.getNextEvent(f, events).isPresent()) {
-				g = EventUtils.getNextEvent(f, events).get();
-			} else {
-				g = lastEvent;
-			}
+			eventsWalked++;
+			// The usage of the resource of t does not change until g, so the
+			// outcome of the test is the same for all the events in [f, g)
+			g = Timeline.next(events, t.getResourceID(), f, lastEvent);
 
 			// Do the capacity test
 			// int capacityAte = f.getResourceCapacity(t.getResourceID()) + 1;
 			int capacityAte = f.getResourceCapacity(t.getResourceID()) + t.getResourceUsage();
-			if (capacityAte <= maxResourceCapacity && checkConstraints(t, e.getTime(), s.getWStart(), s.getWEnd())) {
+			if (!checkConstraints(t, e.getTime(), s.getWStart(), s.getWEnd())) {
+				// The constraints are violated by e, and by any later event
+				break;
+			}
+			if (capacityAte <= maxResourceCapacity) {
 				mi = Math.max(0, mi - g.getTime() + f.getTime());
 				f = g;
 			} else {
+				traceCapacityRejection(t, f, maxResourceCapacity);
 				// start event e is NOT FEASIBLE
 				mi = t.getProcessingTime();
 				e = g;
 				f = g;
 			}
 		}
+		if (mi == 0) {
+			// f may be past the completion of t: take the first event at or
+			// after it
+			Event end = events.ceiling(Event.get(e.getTime() + t.getProcessingTime(), Collections.emptySet()));
+			f = end == null || end.getTime() > lastEvent.getTime() ? lastEvent : end;
+		}
 
 		if (!checkConstraints(t, e.getTime(), s.getWStart(), s.getWEnd())) {
-			events.forEach(ev -> ev.removePlan(t.getPlanID()));
+			traceTaskPlacement(t, false, false, e.getTime(), eventsWalked);
+			SchedulerInstrumentation.collect(point);
 			return false;
 		}
 
+		addTask(s, t, events, e, f, eventsWalked);
+		SchedulerInstrumentation.collect(point);
+		return true;
+	}
+
+	/**
+	 * Add the task t to the solution, starting at the event e, and update the
+	 * timeline. f is the first event not before the completion of t, or the
+	 * event of W<sub>e</sub>.
+	 */
+	private void addTask(Schedule s, Task t, NavigableSet<Event> events, Event e, Event f, int eventsWalked) {
 		// Add to schedule
 		s.addTask(e.getTime(), t);
 
@@ -644,6 +2377,7 @@ public class Scheduler {
 			newEvent.setResourceCapacities(f.resourceCapacity());
 			f.addToC(t);
 			events.add(newEvent);
+			SchedulerInstrumentation.eventCreated();
 			f = newEvent;
 		} else {
 			Event predf = EventUtils.getPreviousEvent(f, events).get();
@@ -651,17 +2385,106 @@ public class Scheduler {
 			newEvent.setResourceCapacities(predf.resourceCapacity());
 			newEvent.addToC(t);
 			events.add(newEvent);
+			SchedulerInstrumentation.eventCreated();
 			f = newEvent;
 		}
 
 		// update the resource usage
 		Event predf = EventUtils.getPreviousEvent(f, events).get();
-		for (Event ev : events) {
-			if (ev.getTime() >= e.getTime() && ev.getTime() <= predf.getTime()) {
-				ev.increaseResourceUsage(t.getResourceID());
-			}
+		for (Event ev : events.subSet(e, true, predf, true)) {
+			ev.increaseResourceUsage(t.getResourceID());
+		}
+		Timeline.usageChanged(events, t.getResourceID(), e, predf);
+		traceTaskPlacement(t, false, true, e.getTime(), eventsWalked);
+	}
+
+	/**
+	 * Emit a {@link TaskPlacementEvent}, if enabled
+	 */
+	private static void traceTaskPlacement(Task t, boolean sync, boolean placed, int startingTime,
+			int eventsWalked) {
+		TaskPlacementEvent event = new TaskPlacementEvent();
+		if (event.isEnabled()) {
+			event.planID = t.getPlanID();
+			event.taskID = t.getID();
+			event.resourceID = t.getResourceID();
+			event.sync = sync;
+			event.placed = placed;
+			event.startingTime = startingTime;
+			event.eventsWalked = eventsWalked;
+			event.commit();
 		}
-		return true;
+	}
+
+	/**
+	 * Emit a {@link CapacityRejectionEvent}, if enabled
+	 */
+	private static void traceCapacityRejection(Task t, Event f, int maxResourceCapacity) {
+		CapacityRejectionEvent event = new CapacityRejectionEvent();
+		if (event.isEnabled()) {
+			event.planID = t.getPlanID();
+			event.taskID = t.getID();
+			event.resourceID = t.getResourceID();
+			event.eventTime = f.getTime();
+			event.usage = f.getResourceCapacity(t.getResourceID());
+			event.required = t.getResourceUsage();
+			event.capacity = maxResourceCapacity;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Get the progress of the scheduler, without waiting for the current run (if
+	 * any) to terminate. A new snapshot is published when a run starts, after
+	 * each plan or set of plans having the same priority has been dispatched,
+	 * and when the run terminates, so this method can be polled by any number of
+	 * threads while {@link #buildSchedule()} is running in another one. When the
+	 * plans are scheduled by components (see
+	 * {@link #setDecomposeComponents(boolean)}), the snapshot is published when
+	 * all the components have been merged.
+	 * 
+	 * @return the last snapshot published, if a run has started
+	 */
+	public Optional<ScheduleSnapshot> getSnapshot() {
+		return Optional.ofNullable(snapshot);
+	}
+
+	/**
+	 * Publish the snapshot of the given run
+	 */
+	void publish(RunContext ctx, boolean complete) {
+		snapshot = ScheduleSnapshot.get(ctx.lastFeasibleSolution, ctx.unscheduledPlans, plans.size(), complete);
+	}
+
+	/**
+	 * Return the events of the timeline built by the last call of
+	 * {@link #buildSchedule()}
+	 * 
+	 * @return an unmodifiable view of the events, sorted by time
+	 */
+	public NavigableSet<Event> getEvents() {
+		return Collections.unmodifiableNavigableSet(lastRun.events);
+	}
+
+	/**
+	 * Get the aggregate of the usage of the resources along the timeline built by
+	 * the last call of {@link #buildSchedule()}, for answering range queries on
+	 * the peak usage, the free capacity and the utilization of each resource. The
+	 * aggregate is built once, and built again only if the timeline has been
+	 * modified since (for example by {@link #insertPlans(Set)}).
+	 * 
+	 * @return the aggregate of the current timeline
+	 */
+	public Utilization getUtilization() {
+		RunContext ctx = lastRun;
+		Utilization u = ctx.utilization;
+		if (u == null || u.version != ctx.events.version()) {
+			EtmPoint point = SchedulerInstrumentation.start(SchedulerInstrumentation.BUILD_UTILIZATION);
+			u = Utilization.get(ctx.events, resourcesIDs, maxResourceCapacity);
+			SchedulerInstrumentation.collect(point);
+			ctx.utilization = u;
+		}
+		return u;
 	}
 
 	/**
@@ -669,7 +2492,7 @@ public class Scheduler {
 	 * @return
 	 */
 	public Event getEndEvent() {
-		return events.stream().max(Event.getComparator()).get();
+		return lastRun.events.last();
 	}
 
 	/**
@@ -684,10 +2507,10 @@ public class Scheduler {
 	 * @return
 	 */
 	private Event getPreviousEvent(int sk, final NavigableSet<Event> events) {
-		Optional<Event> ev = events.stream().filter(e -> e.getTime() == sk).findFirst();
+		Event ev = events.floor(Event.get(sk, Collections.emptySet()));
 
-		if (ev.isPresent()) {
-			return ev.get();
+		if (ev != null && ev.getTime() == sk) {
+			return ev;
 		} else {
 			Event event = Event.get(sk, resourcesIDs);
 
@@ -701,23 +2524,27 @@ public class Scheduler {
 	/**
 	 * Calculate the initial starting time s<sub>k</sub> for a task t. It is the
 	 * maximum between W<sub>s</sub>, r<sub>k</sub> and the latest completion time
-	 * of the predecessors of t
+	 * of the predecessors of t, that is, the time of the event that contains
+	 * each predecessor in C(e)
 	 * 
 	 * @param Ws
+	 * @param s      the solution where the predecessors are scheduled
 	 * @param events
 	 * @param t
 	 * @return
 	 */
-	private int getInitialStartingTime(int Ws, final NavigableSet<Event> events, Task t) {
+	private int getInitialStartingTime(int Ws, final Schedule s, final NavigableSet<Event> events, Task t) {
 		int maxTime = t.getReleaseTime();
-		for (Event event : events) {
-			// search for the latest event that contains a predecessor of t
-			Optional<Task> pr = event.taskTerminatingHere().stream()
-					.filter(x -> x.getPlanID() == t.getPlanID() && t.getPredecessors().contains(x.getID())).findFirst();
-
-			if (pr.isPresent()) {
-				if (event.getTime() > maxTime) {
-					maxTime = event.getTime();
+		for (TaskSchedule ts : s.tasksOf(t.getPlanID())) {
+			if (!t.getPredecessors().contains(ts.getTask().getID())) {
+				continue;
+			}
+			// search for the event that contains the predecessor in C(e), from
+			// its starting time
+			for (Event event : events.tailSet(Event.get(ts.getStartingTime(), Collections.emptySet()), true)) {
+				if (event.taskTerminatingHere().contains(ts.getTask())) {
+					maxTime = Math.max(maxTime, event.getTime());
+					break;
 				}
 			}
 		}
@@ -739,7 +2566,15 @@ public class Scheduler {
 	 * @param plans the set of plans to sort.
 	 * @return the sorted set of plans
 	 */
-	private List<Plan> sortPlans(final List<ExecutableNode> plans) {
+	List<Plan> sortPlans(final List<ExecutableNode> plans) {
+		return sortPlans(plans, PLAN_PRIORITY_COMPARATOR);
+	}
+
+	/**
+	 * <b>ALGORITHM 5</b> using the given comparator for the plans of each
+	 * frontier.
+	 */
+	static List<Plan> sortPlans(final List<ExecutableNode> plans, Comparator<Plan> comparator) {
 		List<Plan> sortedPlanList = new TreeList<>();
 		// Sort topologically the nodes. Each pair is: (left: plan ID, right:
 		// frontier which the plan belongs to into the precedences graph)
@@ -764,7 +2599,7 @@ public class Scheduler {
 		// which they are scheduled doesn't matter. In this case, sort them by
 		// taking into account the priority value of each plan
 		for (Integer frontier : sortedByFrontiers.keySet()) {
-			sortedByFrontiers.get(frontier).sort(PLAN_PRIORITY_COMPARATOR);
+			sortedByFrontiers.get(frontier).sort(comparator);
 			sortedPlanList.addAll(sortedByFrontiers.get(frontier));
 		}
 
@@ -777,7 +2612,7 @@ public class Scheduler {
 	 * @param t
 	 * @param s
 	 */
-	private boolean checkConstraints(final Task t, int startingTime, int Ws, int We) {
+	static boolean checkConstraints(final Task t, int startingTime, int Ws, int We) {
 		// Check for the starting time to be inside the allowed boundaries
 		try {
 			// Checks for the starting time to be inside [rk,dk]
@@ -817,9 +2652,8 @@ public class Scheduler {
 	private boolean checkPrecedences(final Schedule s, final Task t) {
 		// From the list of the actually scheduled task, take those who are
 		// predecessors of the task t
-		List<Integer> scheduledPredecessors = s.taskSchedules().stream()
-				.filter(x -> x.getTask().getPlanID() == t.getPlanID()).map(x -> x.getTask().getID())
-				.collect(Collectors.toList());
+		Set<Integer> scheduledPredecessors = s.tasksOf(t.getPlanID()).stream().map(x -> x.getTask().getID())
+				.collect(Collectors.toSet());
 
 		// Precedences between tasks of the SAME plan
 		for (Integer p : t.getPredecessors()) {
@@ -0,0 +1,64 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the work done by the scheduler. They are updated only when the
+ * instrumentation is enabled (see {@link SchedulerInstrumentation}), and they
+ * are shared by all the schedulers of the JVM.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class SchedulerCounters {
+
+	final LongAdder eventsCreated = new LongAdder();
+	final LongAdder trialsRun = new LongAdder();
+	final LongAdder clonesMade = new LongAdder();
+	final LongAdder plansRejected = new LongAdder();
+
+	SchedulerCounters() {
+	}
+
+	/**
+	 * @return the number of events added to a timeline
+	 */
+	public long getEventsCreated() {
+		return eventsCreated.sum();
+	}
+
+	/**
+	 * @return the number of trials done while scheduling plans having the same
+	 *         priority (ALGORITHM 3)
+	 */
+	public long getTrialsRun() {
+		return trialsRun.sum();
+	}
+
+	/**
+	 * @return the number of copies of a schedule or of a timeline
+	 */
+	public long getClonesMade() {
+		return clonesMade.sum();
+	}
+
+	/**
+	 * @return the number of plans that have not been scheduled
+	 */
+	public long getPlansRejected() {
+		return plansRejected.sum();
+	}
+
+	public void reset() {
+		eventsCreated.reset();
+		trialsRun.reset();
+		clonesMade.reset();
+		plansRejected.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "events created=" + getEventsCreated() + ", trials run=" + getTrialsRun() + ", clones made="
+				+ getClonesMade() + ", plans rejected=" + getPlansRejected();
+	}
+}
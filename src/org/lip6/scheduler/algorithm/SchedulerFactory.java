@@ -73,9 +73,9 @@ public class SchedulerFactory {
 					.addAll(p.getTasks().stream().map(x -> x.getResourceID()).collect(Collectors.toList()));
 		}
 
-		// Create two events for Ws and We
-		scheduler.events.add(Event.get(wStart, scheduler.resourcesIDs));
-		scheduler.events.add(Event.get(wEnd, scheduler.resourcesIDs));
+		// The timeline, until the first run, contains only the events for Ws
+		// and We
+		scheduler.lastRun = RunContext.get(wStart, wEnd, scheduler.resourcesIDs);
 
 		return scheduler;
 	}
@@ -99,6 +99,25 @@ public class SchedulerFactory {
 		return scheduler;
 	}
 
+	/**
+	 * Static factory method for Scheduler. It returns a new instance of Scheduler
+	 * class, that builds the schedule with the given engine
+	 * 
+	 * @param maxResourceCapacity the maximum capacity of all the resources
+	 * @param plans               the set of plans to scheduler
+	 * @param wStart              the starting time of the temporal window
+	 * @param wEnd                the final time of the temporal window
+	 * @param engine              the engine, for example {@link Scheduler.Engine#LIST}
+	 *                            for very large instances
+	 * @return
+	 */
+	public static Scheduler get(final int maxResourceCapacity, Set<Plan> plans, int wStart, int wEnd,
+			Scheduler.Engine engine) {
+		Scheduler scheduler = SchedulerFactory.get(maxResourceCapacity, plans, wStart, wEnd);
+		scheduler.setEngine(engine);
+		return scheduler;
+	}
+
 	/**
 	 * Unused?
 	 * 
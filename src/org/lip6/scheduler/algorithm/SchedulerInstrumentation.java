@@ -0,0 +1,217 @@
+package org.lip6.scheduler.algorithm;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import etm.core.aggregation.Aggregate;
+import etm.core.monitor.EtmMonitor;
+import etm.core.monitor.EtmPoint;
+import etm.core.monitor.NestedMonitor;
+import etm.core.renderer.SimpleTextRenderer;
+import etm.core.timer.Java15NanoTimer;
+
+/**
+ * Switchable instrumentation of the scheduler. When enabled, the execution
+ * times of the main phases of the scheduler are measured through JETM, and the
+ * {@link SchedulerCounters} are updated.<br/>
+ * <br/>
+ * The instrumentation is disabled by default. When disabled, each measurement
+ * point costs a single read of a volatile field.<br/>
+ * <br/>
+ * Example of usage:
+ * 
+ * <pre>
+ * {@code
+ * SchedulerInstrumentation.setLevel(Level.FULL);
+ * scheduler.buildSchedule();
+ * Map<String, PhaseStatistics> results = SchedulerInstrumentation.getResults();
+ * SchedulerInstrumentation.render(new PrintWriter(System.out));
+ * }
+ * </pre>
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class SchedulerInstrumentation {
+
+	/**
+	 * What is measured by the instrumentation
+	 */
+	public enum Level {
+		/**
+		 * Nothing is measured
+		 */
+		OFF,
+		/**
+		 * Only the counters are updated
+		 */
+		COUNTERS,
+		/**
+		 * Both the counters and the execution times of the phases are measured
+		 */
+		FULL
+	}
+
+	public static final String SORT_PLANS = "Scheduler:sortPlans";
+	public static final String SCHEDULE_PLAN = "Scheduler:schedulePlan";
+	public static final String SCHEDULE_PLAN_SET = "Scheduler:schedulePlanSet";
+	public static final String SCHEDULE_TASK = "Scheduler:scheduleTask";
+	public static final String SCHEDULE_SYNC_TASKS = "Scheduler:scheduleSyncTasks";
+	public static final String CLONE_SCHEDULE = "Scheduler:cloneSchedule";
+	public static final String CLONE_EVENTS = "Scheduler:cloneEvents";
+	public static final String NOTIFY_LISTENER = "Scheduler:notifyListener";
+	public static final String SEARCH_OPTIMAL_WE = "Scheduler:searchOptimalWe";
+	public static final String CHECK_FEASIBILITY = "Scheduler:checkFeasibility";
+	public static final String BUILD_UTILIZATION = "Scheduler:buildUtilization";
+	public static final String IMPROVE = "Scheduler:improve";
+	public static final String BUILD_PORTFOLIO = "Scheduler:buildPortfolio";
+	public static final String BUILD_LIST = "Scheduler:buildList";
+	public static final String PRE_SCREEN = "Scheduler:preScreen";
+
+	private static volatile Level level = Level.OFF;
+	private static volatile EtmMonitor monitor;
+	private static final SchedulerCounters counters = new SchedulerCounters();
+
+	private SchedulerInstrumentation() {
+	}
+
+	/**
+	 * Set what is measured from now on. Results collected so far are kept until
+	 * {@link #reset()} is invoked.
+	 * 
+	 * @param newLevel
+	 */
+	public static synchronized void setLevel(Level newLevel) {
+		if (newLevel == Level.FULL && monitor == null) {
+			EtmMonitor m = new NestedMonitor(new Java15NanoTimer());
+			m.start();
+			monitor = m;
+		}
+		level = newLevel;
+	}
+
+	public static Level getLevel() {
+		return level;
+	}
+
+	public static boolean isEnabled() {
+		return level != Level.OFF;
+	}
+
+	/**
+	 * @return the counters of the work done by the scheduler
+	 */
+	public static SchedulerCounters getCounters() {
+		return counters;
+	}
+
+	/**
+	 * Discard the results and the counters collected so far
+	 */
+	public static synchronized void reset() {
+		counters.reset();
+		if (monitor != null) {
+			monitor.reset();
+		}
+	}
+
+	/**
+	 * Get the aggregated execution times of the phases measured so far. The
+	 * measures of a phase nested in different phases are merged.
+	 * 
+	 * @return a map whose keys are the names of the phases
+	 */
+	public static Map<String, PhaseStatistics> getResults() {
+		EtmMonitor m = monitor;
+		if (m == null) {
+			return Collections.emptyMap();
+		}
+
+		Map<String, PhaseStatistics> results = new HashMap<>();
+		m.render(points -> aggregate(points, results));
+		return results;
+	}
+
+	/**
+	 * Render the execution times of the phases measured so far, followed by the
+	 * counters.
+	 * 
+	 * @param writer
+	 * @throws IOException
+	 */
+	public static void render(Writer writer) throws IOException {
+		EtmMonitor m = monitor;
+		if (m != null) {
+			m.render(new SimpleTextRenderer(writer));
+		}
+		writer.write(counters.toString());
+		writer.write(System.lineSeparator());
+		writer.flush();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void aggregate(Map<?, ?> points, Map<String, PhaseStatistics> results) {
+		for (Object value : points.values()) {
+			Aggregate a = (Aggregate) value;
+			PhaseStatistics s = new PhaseStatistics(a.getName(), a.getMeasurements(), a.getTotal(), a.getMin(),
+					a.getMax());
+			results.merge(a.getName(), s, PhaseStatistics::merge);
+			if (a.hasChilds()) {
+				aggregate((Map<Object, Object>) a.getChilds(), results);
+			}
+		}
+	}
+
+	/**
+	 * Start measuring the given phase.
+	 * 
+	 * @param name the name of the phase
+	 * @return the measurement point, or <b>null</b> if the execution times are not
+	 *         measured
+	 */
+	static EtmPoint start(String name) {
+		if (level != Level.FULL) {
+			return null;
+		}
+		EtmMonitor m = monitor;
+		return m == null ? null : m.createPoint(name);
+	}
+
+	/**
+	 * Stop measuring a phase started with {@link #start(String)}
+	 * 
+	 * @param point
+	 */
+	static void collect(EtmPoint point) {
+		if (point != null) {
+			point.collect();
+		}
+	}
+
+	static void eventCreated() {
+		if (level != Level.OFF) {
+			counters.eventsCreated.increment();
+		}
+	}
+
+	static void trialRun() {
+		if (level != Level.OFF) {
+			counters.trialsRun.increment();
+		}
+	}
+
+	static void cloneMade() {
+		if (level != Level.OFF) {
+			counters.clonesMade.increment();
+		}
+	}
+
+	static void planRejected() {
+		if (level != Level.OFF) {
+			counters.plansRejected.increment();
+		}
+	}
+}
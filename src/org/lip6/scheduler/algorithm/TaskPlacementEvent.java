@@ -0,0 +1,46 @@
+package org.lip6.scheduler.algorithm;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted each time the scheduler tries to place a task
+ * (ALGORITHM 4) or a set of synchronized tasks on the timeline.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+@Name("org.lip6.scheduler.TaskPlacement")
+@Label("Task Placement")
+@Category("Scheduler")
+@Description("The placement of a task on the timeline")
+@StackTrace(false)
+final class TaskPlacementEvent extends jdk.jfr.Event {
+
+	@Label("Plan ID")
+	int planID;
+
+	@Label("Task ID")
+	int taskID;
+
+	@Label("Resource ID")
+	int resourceID;
+
+	@Label("Synchronized")
+	@Description("True if the task has been placed together with the other synchronized tasks of its plan")
+	boolean sync;
+
+	@Label("Placed")
+	boolean placed;
+
+	@Label("Starting Time")
+	@Description("The chosen starting time, or the last starting time tested if the task has not been placed")
+	int startingTime;
+
+	@Label("Events Walked")
+	@Description("The number of events of the timeline visited to find the starting time")
+	int eventsWalked;
+}
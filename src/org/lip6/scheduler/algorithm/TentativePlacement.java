@@ -0,0 +1,267 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.Task;
+
+/**
+ * The placement that ALGORITHM 2 would give to a plan on a timeline, computed
+ * without modifying the timeline. The tasks of the plan are placed, in order,
+ * on the usage of their resources in the timeline plus the usage of the tasks
+ * of the plan already placed.<br/>
+ * <br/>
+ * Since the timeline is only read, the placements of several plans can be
+ * computed concurrently. If a plan without synchronized tasks is then
+ * scheduled on a timeline where its resources have the same usage, ALGORITHM 2
+ * gives the same starting times. The synchronized tasks are placed by the same
+ * search of ALGORITHM 2; the tasks that follow them are placed on the usage
+ * they leave, which may differ from the events created by ALGORITHM 2. For
+ * such a plan, {@link Scheduler#checkFeasibility(Plan)} keeps only the
+ * outcome of the synchronized tasks.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class TentativePlacement {
+
+	private final Plan plan;
+	/**
+	 * For each task ID (key) placed, the initial starting time s<sub>k</sub>
+	 * computed for it (value)
+	 */
+	private final Map<Integer, Integer> initialStartingTimes;
+	/**
+	 * For each task ID (key) placed, its starting time (value)
+	 */
+	private final Map<Integer, Integer> startingTimes;
+	/**
+	 * The resources read by the placement
+	 */
+	private final Set<Integer> resources;
+	private Optional<Task> blockingTask;
+	private Optional<Feasibility.Reason> reason;
+
+	private TentativePlacement(Plan plan) {
+		this.plan = plan;
+		initialStartingTimes = new LinkedHashMap<>();
+		startingTimes = new LinkedHashMap<>();
+		resources = new HashSet<>();
+		blockingTask = Optional.empty();
+		reason = Optional.empty();
+	}
+
+	/**
+	 * Compute the placement of the given plan on the given timeline.
+	 *
+	 * @param plan
+	 * @param events              the timeline, which is not modified
+	 * @param maxResourceCapacity
+	 * @param Ws
+	 * @param We
+	 * @return
+	 */
+	static TentativePlacement get(Plan plan, Timeline events, int maxResourceCapacity, int Ws, int We) {
+		TentativePlacement placement = new TentativePlacement(plan);
+		// For each resource (key), the intervals [start, end) of the tasks of the
+		// plan already placed (value)
+		Map<Integer, List<int[]>> placed = new HashMap<>();
+		// For each task ID (key) placed, the time of the event that contains it
+		// in C(e) (value)
+		Map<Integer, Integer> completions = new HashMap<>();
+
+		if (plan.hasSyncTask()
+				&& !placement.placeSyncTasks(events, maxResourceCapacity, Ws, We, placed, completions)) {
+			return placement;
+		}
+
+		for (Task t : plan.getTasks()) {
+			if (plan.getSyncTasks().contains(t)) {
+				continue;
+			}
+			placement.resources.add(t.getResourceID());
+
+			// Precedences between tasks of the same plan
+			int sk = t.getReleaseTime();
+			for (int p : t.getPredecessors()) {
+				if (!placement.startingTimes.containsKey(p)) {
+					placement.block(t, Feasibility.Reason.PRECEDENCE);
+					return placement;
+				}
+				if (completions.containsKey(p)) {
+					sk = Math.max(sk, completions.get(p));
+				}
+			}
+			sk = Math.max(sk, Ws);
+			if (!Scheduler.checkConstraints(t, sk, Ws, We)) {
+				placement.block(t, Feasibility.Reason.TEMPORAL_WINDOW);
+				return placement;
+			}
+
+			List<int[]> intervals = placed.getOrDefault(t.getResourceID(), Collections.emptyList());
+			int e = sk;
+			int f = sk;
+			int mi = t.getProcessingTime();
+			while (mi > 0 && f != We) {
+				if (!Scheduler.checkConstraints(t, e, Ws, We)) {
+					break;
+				}
+				int g = nextChange(events, intervals, t.getResourceID(), f, We);
+				if (usageAt(events, intervals, t.getResourceID(), f) + t.getResourceUsage() <= maxResourceCapacity) {
+					mi = Math.max(0, mi - g + f);
+					f = g;
+				} else {
+					mi = t.getProcessingTime();
+					e = g;
+					f = g;
+				}
+			}
+			if (!Scheduler.checkConstraints(t, e, Ws, We)) {
+				placement.block(t, Feasibility.Reason.CAPACITY);
+				return placement;
+			}
+
+			placement.initialStartingTimes.put(t.getID(), sk);
+			placement.startingTimes.put(t.getID(), e);
+			completions.put(t.getID(), e + t.getProcessingTime());
+			placed.computeIfAbsent(t.getResourceID(), k -> new ArrayList<>())
+					.add(new int[] { e, e + t.getProcessingTime() });
+		}
+		return placement;
+	}
+
+	/**
+	 * Place the synchronized tasks of the plan at the same starting time, with
+	 * the search of ALGORITHM 2, which moves from one event of the timeline to the
+	 * next.
+	 */
+	private boolean placeSyncTasks(Timeline events, int maxResourceCapacity, int Ws, int We,
+			Map<Integer, List<int[]>> placed, Map<Integer, Integer> completions) {
+		List<Task> syncTasks = plan.getSyncTasks();
+		int sk = Ws;
+		for (Task t : syncTasks) {
+			resources.add(t.getResourceID());
+			sk = Math.max(sk, t.getReleaseTime());
+		}
+
+		int e = sk;
+		int f = sk;
+		int mi = syncTasks.stream().mapToInt(x -> x.getProcessingTime()).max().getAsInt();
+		while (mi > 0 && f != We) {
+			Event next = events.higher(Event.get(f, Collections.emptySet()));
+			if (next == null) {
+				break;
+			}
+			int g = next.getTime();
+			int placedTasks = 0;
+			for (Task t : syncTasks) {
+				if (events.usageAt(t.getResourceID(), f) + t.getResourceUsage() <= maxResourceCapacity
+						&& Scheduler.checkConstraints(t, e, Ws, We)) {
+					placedTasks++;
+				}
+			}
+			mi = Math.max(0, mi - g + f);
+			if (placedTasks < syncTasks.size()) {
+				e = g;
+			}
+			f = g;
+		}
+
+		for (Task t : syncTasks) {
+			if (!Scheduler.checkConstraints(t, e, Ws, We)) {
+				block(t, e == sk ? Feasibility.Reason.TEMPORAL_WINDOW : Feasibility.Reason.CAPACITY);
+				return false;
+			}
+		}
+
+		// ALGORITHM 2 puts each task in C(e) of the event that precedes its
+		// completion, if any
+		for (Task t : syncTasks) {
+			int completion = e + t.getProcessingTime();
+			initialStartingTimes.put(t.getID(), sk);
+			startingTimes.put(t.getID(), e);
+			completions.put(t.getID(), Math.min(completion, f));
+			f = completion;
+			placed.computeIfAbsent(t.getResourceID(), k -> new ArrayList<>()).add(new int[] { e, completion });
+		}
+		return true;
+	}
+
+	private void block(Task t, Feasibility.Reason r) {
+		resources.add(t.getResourceID());
+		blockingTask = Optional.of(t);
+		reason = Optional.of(r);
+	}
+
+	private static int usageAt(Timeline events, List<int[]> intervals, int resourceID, int time) {
+		int usage = events.usageAt(resourceID, time);
+		for (int[] x : intervals) {
+			if (x[0] <= time && time < x[1]) {
+				usage++;
+			}
+		}
+		return usage;
+	}
+
+	private static int nextChange(Timeline events, List<int[]> intervals, int resourceID, int time, int bound) {
+		int next = events.nextChange(resourceID, time, bound);
+		for (int[] x : intervals) {
+			for (int b : x) {
+				if (b > time && b < next) {
+					next = b;
+				}
+			}
+		}
+		return next;
+	}
+
+	Plan getPlan() {
+		return plan;
+	}
+
+	/**
+	 * @return true if all the tasks of the plan can be placed
+	 */
+	boolean isFeasible() {
+		return !reason.isPresent();
+	}
+
+	/**
+	 * @return the resources whose usage has been read
+	 */
+	Set<Integer> getResources() {
+		return Collections.unmodifiableSet(resources);
+	}
+
+	int getInitialStartingTime(Task t) {
+		return initialStartingTimes.get(t.getID());
+	}
+
+	int getStartingTime(Task t) {
+		return startingTimes.get(t.getID());
+	}
+
+	/**
+	 * @return for each task ID (key) placed, its starting time (value), in the
+	 *         order the tasks have been placed
+	 */
+	Map<Integer, Integer> getStartingTimes() {
+		return Collections.unmodifiableMap(startingTimes);
+	}
+
+	Optional<Task> getBlockingTask() {
+		return blockingTask;
+	}
+
+	Optional<Feasibility.Reason> getReason() {
+		return reason;
+	}
+}
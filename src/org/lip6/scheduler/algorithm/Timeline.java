@@ -0,0 +1,317 @@
+package org.lip6.scheduler.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The timeline of a run: the events of all the resources, sorted by time,
+ * partitioned by resource.<br/>
+ * <br/>
+ * For each resource, the timeline keeps the events where the usage of the
+ * resource changes with respect to the previous event. Between two of these
+ * events the usage of the resource is constant, so the placement of a task
+ * (ALGORITHM 4) moves from one to the next, and its cost depends on the
+ * activity on the resource of the task rather than on the number of events.
+ * The events themselves remain the global index used for the synchronized
+ * tasks and for the precedences.<br/>
+ * <br/>
+ * The partition is updated when an event is added or removed, only for the
+ * resources whose usage at the event differs from the usage at the previous
+ * event. When the usage of a resource is modified on a range of events,
+ * {@link #usageChanged(int, Event, Event)} must be called.<br/>
+ * <br/>
+ * The events added while a plan is placed can be recorded (see
+ * {@link #startRecording()}), so that a plan that cannot be scheduled leaves
+ * the timeline as it was before its placement.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+final class Timeline extends TreeSet<Event> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * For each resource (key), the events where its usage changes (value)
+	 */
+	private final Map<Integer, TreeSet<Event>> changes;
+	/**
+	 * Incremented each time the events or the usage of the resources are
+	 * modified
+	 */
+	private int version;
+	/**
+	 * The events added since {@link #startRecording()}, or null if the events
+	 * added are not recorded
+	 */
+	private List<Event> added;
+
+	Timeline() {
+		super(Event.getComparator());
+		changes = new HashMap<>();
+	}
+
+	/**
+	 * Get a deep copy of the given timeline. The partition is copied rather than
+	 * computed again.
+	 */
+	Timeline(Timeline source) throws CloneNotSupportedException {
+		this();
+		Map<Event, Event> clones = new IdentityHashMap<>();
+		for (Event e : source) {
+			Event cloned = (Event) e.clone();
+			clones.put(e, cloned);
+			super.add(cloned);
+		}
+		for (Map.Entry<Integer, TreeSet<Event>> entry : source.changes.entrySet()) {
+			TreeSet<Event> c = new TreeSet<>(Event.getComparator());
+			entry.getValue().forEach(e -> c.add(clones.get(e)));
+			changes.put(entry.getKey(), c);
+		}
+	}
+
+	@Override
+	public boolean add(Event e) {
+		if (!super.add(e)) {
+			return false;
+		}
+		Event pred = lower(e);
+		if (pred == null) {
+			refresh(e);
+			refresh(higher(e));
+		} else {
+			// Only the resources whose usage at e differs from the usage at its
+			// predecessor change the partition: an event that copies the usage
+			// of its predecessor is not a change, and its successor keeps the
+			// same usage on both sides.
+			Set<Integer> differ = differing(pred, e);
+			Event next = differ.isEmpty() ? null : higher(e);
+			for (int r : differ) {
+				refresh(r, e, pred);
+				if (next != null) {
+					refresh(r, next, e);
+				}
+			}
+		}
+		if (added != null) {
+			added.add(e);
+		}
+		version++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof Event) || !contains(o)) {
+			return false;
+		}
+		Event e = (Event) o;
+		Event pred = lower(e);
+		Event next = higher(e);
+		super.remove(o);
+		if (pred == null) {
+			changes.values().forEach(x -> x.remove(o));
+			refresh(next);
+		} else {
+			// e is a change only for the resources whose usage differs from its
+			// predecessor, and so may be its successor from now on
+			for (int r : differing(pred, e)) {
+				TreeSet<Event> c = changes.get(r);
+				if (c != null) {
+					c.remove(o);
+				}
+				if (next != null) {
+					refresh(r, next, pred);
+				}
+			}
+		}
+		version++;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		changes.clear();
+		version++;
+	}
+
+	/**
+	 * Replace the events of this timeline with the given ones, which must be
+	 * sorted by time and carry the usage of all the resources. The partition is
+	 * computed in a single pass, comparing each event with the previous one.
+	 */
+	void load(Collection<Event> sorted) {
+		clear();
+		Event pred = null;
+		for (Event e : sorted) {
+			super.add(e);
+			for (int r : e.resourceCapacity().keySet()) {
+				if (pred == null || pred.getResourceCapacity(r) != e.getResourceCapacity(r)) {
+					changes.computeIfAbsent(r, k -> new TreeSet<>(Event.getComparator())).add(e);
+				}
+			}
+			pred = e;
+		}
+		version++;
+	}
+
+	/**
+	 * Record the events added to this timeline from now on
+	 */
+	void startRecording() {
+		added = new ArrayList<>();
+	}
+
+	/**
+	 * Stop recording the events added to this timeline
+	 *
+	 * @return the events added since {@link #startRecording()}
+	 */
+	List<Event> stopRecording() {
+		List<Event> result = added == null ? Collections.emptyList() : added;
+		added = null;
+		return result;
+	}
+
+	/**
+	 * Remove the events that precede the given one
+	 */
+	void removeBefore(Event e) {
+		headSet(e, false).clear();
+		changes.values().forEach(x -> x.headSet(e, false).clear());
+		refresh(ceiling(e));
+		version++;
+	}
+
+	/**
+	 * Update the partition after the usage of the given resource has been
+	 * modified on all the events in [from, to]
+	 */
+	void usageChanged(int resourceID, Event from, Event to) {
+		refresh(resourceID, from);
+		refresh(resourceID, higher(to));
+		version++;
+	}
+
+	/**
+	 * @return a number that changes each time the timeline is modified
+	 */
+	int version() {
+		return version;
+	}
+
+	/**
+	 * Get the first event after f where the usage of the given resource changes,
+	 * or the given bound if there is no such event before it
+	 */
+	Event nextChange(int resourceID, Event f, Event bound) {
+		TreeSet<Event> c = changes.get(resourceID);
+		Event next = c == null ? null : c.higher(f);
+		if (next == null || next.getTime() >= bound.getTime()) {
+			return bound;
+		}
+		return next;
+	}
+
+	/**
+	 * Get the usage of the given resource at the given time instant, that is, the
+	 * usage at the latest event not after it
+	 */
+	int usageAt(int resourceID, int time) {
+		Event e = floor(Event.get(time, Collections.emptySet()));
+		return e == null ? 0 : e.getResourceCapacity(resourceID);
+	}
+
+	/**
+	 * Get the first time instant after the given one where the usage of the given
+	 * resource changes, or the given bound if there is no such instant before it
+	 */
+	int nextChange(int resourceID, int time, int bound) {
+		TreeSet<Event> c = changes.get(resourceID);
+		Event next = c == null ? null : c.higher(Event.get(time, Collections.emptySet()));
+		if (next == null || next.getTime() >= bound) {
+			return bound;
+		}
+		return next.getTime();
+	}
+
+	/**
+	 * Get the next event to visit from f when placing a task on the given
+	 * resource: if the events are a {@link Timeline}, the events where the usage
+	 * of the resource does not change are skipped.
+	 */
+	static Event next(NavigableSet<Event> events, int resourceID, Event f, Event bound) {
+		if (events instanceof Timeline) {
+			return ((Timeline) events).nextChange(resourceID, f, bound);
+		}
+		return EventUtils.getNextEvent(f, events).orElse(bound);
+	}
+
+	/**
+	 * Notify a {@link Timeline} that the usage of the given resource has been
+	 * modified on all the events in [from, to]. Nothing is done for other sets of
+	 * events.
+	 */
+	static void usageChanged(NavigableSet<Event> events, int resourceID, Event from, Event to) {
+		if (events instanceof Timeline) {
+			((Timeline) events).usageChanged(resourceID, from, to);
+		}
+	}
+
+	private void refresh(Event e) {
+		if (e == null) {
+			return;
+		}
+		Event pred = lower(e);
+		Set<Integer> resources = new HashSet<>(e.resourceCapacity().keySet());
+		if (pred != null) {
+			resources.addAll(pred.resourceCapacity().keySet());
+		}
+		resources.addAll(changes.keySet());
+		for (int r : resources) {
+			refresh(r, e, pred);
+		}
+	}
+
+	/**
+	 * @return the resources whose usage at the given events differs
+	 */
+	private static Set<Integer> differing(Event a, Event b) {
+		Set<Integer> result = new HashSet<>();
+		a.resourceCapacity().forEach((r, usage) -> {
+			if (b.getResourceCapacity(r) != usage) {
+				result.add(r);
+			}
+		});
+		b.resourceCapacity().forEach((r, usage) -> {
+			if (a.getResourceCapacity(r) != usage) {
+				result.add(r);
+			}
+		});
+		return result;
+	}
+
+	private void refresh(int resourceID, Event e) {
+		if (e != null) {
+			refresh(resourceID, e, lower(e));
+		}
+	}
+
+	private void refresh(int resourceID, Event e, Event pred) {
+		if (pred == null || pred.getResourceCapacity(resourceID) != e.getResourceCapacity(resourceID)) {
+			changes.computeIfAbsent(resourceID, k -> new TreeSet<>(Event.getComparator())).add(e);
+		} else if (changes.containsKey(resourceID)) {
+			changes.get(resourceID).remove(e);
+		}
+	}
+}
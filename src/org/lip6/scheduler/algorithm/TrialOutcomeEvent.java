@@ -0,0 +1,41 @@
+package org.lip6.scheduler.algorithm;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted for each trial done while scheduling a set of
+ * plans having the same priority value (ALGORITHM 3). Its duration is the time
+ * spent for the trial, copies of the solution and of the timeline included.
+ * 
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+@Name("org.lip6.scheduler.TrialOutcome")
+@Label("Trial Outcome")
+@Category("Scheduler")
+@Description("The outcome of a trial of ALGORITHM 3")
+@StackTrace(false)
+final class TrialOutcomeEvent extends jdk.jfr.Event {
+
+	@Label("Plan ID")
+	int planID;
+
+	@Label("Iteration")
+	@Description("The iteration of ALGORITHM 3, that is, the number of plans of the set already committed")
+	int iteration;
+
+	@Label("Scheduled")
+	boolean scheduled;
+
+	@Label("Idle Time")
+	@Description("The idle time of the plan, if scheduled")
+	int idleTime;
+
+	@Label("Best")
+	@Description("True if the plan has the minimum idle time found so far in the iteration")
+	boolean best;
+}
@@ -0,0 +1,274 @@
+package org.lip6.scheduler.algorithm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.csv.CSVFormat;
+import org.lip6.scheduler.utils.Utils;
+
+/**
+ * The usage of the resources along a timeline, aggregated for range queries.
+ * The usage of a resource is constant between two consecutive events, so for
+ * each resource the timeline is turned into a step function, together with
+ * its prefix sums (for the busy time) and a sparse table (for the peak
+ * usage).<br/>
+ * <br/>
+ * Once built, the busy time, the utilization and the free capacity of a
+ * resource over any range of time are computed in O(log n), where n is the
+ * number of events, without visiting the events again. The aggregate is
+ * immutable: it describes the timeline at the moment it has been built, and
+ * can be read concurrently by many threads.
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public final class Utilization {
+
+	private final int capacity;
+	/**
+	 * The time instants of the events, sorted
+	 */
+	private final int[] times;
+	/**
+	 * For each resource (key), the usage between each event and the next one
+	 * (value)
+	 */
+	private final Map<Integer, int[]> usage;
+	/**
+	 * For each resource (key), the busy time before each event (value)
+	 */
+	private final Map<Integer, long[]> busy;
+	/**
+	 * For each resource (key), the sparse table of the maxima of its usage
+	 * (value): the element [k][i] is the maximum usage between the events i and
+	 * i + 2<sup>k</sup> - 1
+	 */
+	private final Map<Integer, int[][]> peaks;
+	/**
+	 * The version of the timeline this aggregate has been built from
+	 */
+	final int version;
+
+	private Utilization(int capacity, int[] times, int version) {
+		this.capacity = capacity;
+		this.times = times;
+		this.version = version;
+		usage = new HashMap<>();
+		busy = new HashMap<>();
+		peaks = new HashMap<>();
+	}
+
+	/**
+	 * Build the aggregate of the given timeline, in a single pass over the
+	 * events.
+	 *
+	 * @param events       the timeline, which must contain at least one event
+	 * @param resourcesIDs the resources to aggregate
+	 * @param capacity     the maximum capacity of the resources
+	 * @return
+	 */
+	static Utilization get(NavigableSet<Event> events, Set<Integer> resourcesIDs, int capacity) {
+		if (events.isEmpty()) {
+			throw new IllegalArgumentException("Empty timeline");
+		}
+		int n = events.size();
+		int[] times = new int[n];
+		int version = events instanceof Timeline ? ((Timeline) events).version() : 0;
+		Utilization u = new Utilization(capacity, times, version);
+		for (int r : resourcesIDs) {
+			u.usage.put(r, new int[n]);
+			u.busy.put(r, new long[n]);
+		}
+
+		int i = 0;
+		for (Event e : events) {
+			times[i] = e.getTime();
+			for (Map.Entry<Integer, int[]> entry : u.usage.entrySet()) {
+				entry.getValue()[i] = e.getResourceCapacity(entry.getKey());
+				if (i > 0) {
+					long[] b = u.busy.get(entry.getKey());
+					b[i] = b[i - 1] + (long) entry.getValue()[i - 1] * (times[i] - times[i - 1]);
+				}
+			}
+			i++;
+		}
+
+		for (Map.Entry<Integer, int[]> entry : u.usage.entrySet()) {
+			u.peaks.put(entry.getKey(), sparseTable(entry.getValue()));
+		}
+		return u;
+	}
+
+	private static int[][] sparseTable(int[] values) {
+		int levels = 32 - Integer.numberOfLeadingZeros(values.length);
+		int[][] table = new int[levels][];
+		table[0] = values;
+		for (int k = 1; k < levels; k++) {
+			int half = 1 << (k - 1);
+			table[k] = new int[values.length - (1 << k) + 1];
+			for (int i = 0; i < table[k].length; i++) {
+				table[k][i] = Math.max(table[k - 1][i], table[k - 1][i + half]);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * @return the IDs of the aggregated resources, sorted
+	 */
+	public Set<Integer> getResources() {
+		return Collections.unmodifiableSet(new TreeSet<>(usage.keySet()));
+	}
+
+	/**
+	 * @return the time instant of the first event
+	 */
+	public int getStart() {
+		return times[0];
+	}
+
+	/**
+	 * @return the time instant of the last event
+	 */
+	public int getEnd() {
+		return times[times.length - 1];
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Get the usage of the given resource at the given time instant
+	 */
+	public int getUsage(int resourceID, int time) {
+		Utils.requireValidBounds(time, getStart(), getEnd(), "Time " + time + " is outside the timeline");
+		return usageOf(resourceID)[indexOf(time)];
+	}
+
+	/**
+	 * Get the maximum usage of the given resource in [from, to)
+	 *
+	 * @return the peak usage, 0 if the range is empty
+	 */
+	public int getPeakUsage(int resourceID, int from, int to) {
+		requireValidRange(resourceID, from, to);
+		if (from == to) {
+			return 0;
+		}
+		int[][] table = peaks.get(resourceID);
+		int i = indexOf(from);
+		int j = indexOf(to - 1);
+		int k = 31 - Integer.numberOfLeadingZeros(j - i + 1);
+		return Math.max(table[k][i], table[k][j - (1 << k) + 1]);
+	}
+
+	/**
+	 * Get the capacity of the given resource that is free on the whole range
+	 * [from, to), that is, the capacity that can be used by a task executed in
+	 * the range
+	 */
+	public int getFreeCapacity(int resourceID, int from, int to) {
+		return Math.max(0, capacity - getPeakUsage(resourceID, from, to));
+	}
+
+	/**
+	 * Get the busy time of the given resource in [from, to): the sum, over the
+	 * time instants of the range, of the usage of the resource. A task of
+	 * processing time p contributes at most p to it.
+	 */
+	public long getBusyTime(int resourceID, int from, int to) {
+		requireValidRange(resourceID, from, to);
+		return busyUntil(resourceID, to) - busyUntil(resourceID, from);
+	}
+
+	/**
+	 * Get the capacity of the given resource left unused in [from, to), in the
+	 * same unit of {@link #getBusyTime(int, int, int)}
+	 */
+	public long getFreeTime(int resourceID, int from, int to) {
+		return (long) capacity * (to - from) - getBusyTime(resourceID, from, to);
+	}
+
+	/**
+	 * Get the time-weighted utilization of the given resource in [from, to): its
+	 * busy time divided by its capacity over the range
+	 *
+	 * @return a value between 0 and 1, 0 if the range is empty
+	 */
+	public double getUtilization(int resourceID, int from, int to) {
+		long b = getBusyTime(resourceID, from, to);
+		return from == to || capacity == 0 ? 0 : (double) b / ((long) capacity * (to - from));
+	}
+
+	/**
+	 * Write the utilization curves of all the resources as CSV records. The first
+	 * record has the field "time" followed by the IDs of the resources; then, for
+	 * each event, its time instant followed by the usage of each resource from
+	 * that instant to the next event.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeCSV(Appendable out) throws IOException {
+		List<Integer> resources = new ArrayList<>(getResources());
+		List<Object> record = new ArrayList<>(resources.size() + 1);
+		record.add("time");
+		record.addAll(resources);
+		CSVFormat.EXCEL.printRecord(out, record.toArray());
+
+		int[][] curves = new int[resources.size()][];
+		for (int r = 0; r < curves.length; r++) {
+			curves[r] = usage.get(resources.get(r));
+		}
+		for (int i = 0; i < times.length; i++) {
+			record.clear();
+			record.add(times[i]);
+			for (int[] curve : curves) {
+				record.add(curve[i]);
+			}
+			CSVFormat.EXCEL.printRecord(out, record.toArray());
+		}
+	}
+
+	private long busyUntil(int resourceID, int time) {
+		int i = indexOf(time);
+		return busy.get(resourceID)[i] + (long) usage.get(resourceID)[i] * (time - times[i]);
+	}
+
+	/**
+	 * @return the index of the latest event not after the given time instant
+	 */
+	private int indexOf(int time) {
+		int i = Arrays.binarySearch(times, time);
+		return i >= 0 ? i : -i - 2;
+	}
+
+	private int[] usageOf(int resourceID) {
+		int[] u = usage.get(resourceID);
+		if (u == null) {
+			throw new IllegalArgumentException("Resource " + resourceID + " does not belong to the timeline");
+		}
+		return u;
+	}
+
+	private void requireValidRange(int resourceID, int from, int to) {
+		usageOf(resourceID);
+		Utils.requireValidBounds(from, getStart(), getEnd(), "Time " + from + " is outside the timeline");
+		Utils.requireValidBounds(to, from, getEnd(), "Time " + to + " is outside [" + from + ", " + getEnd() + "]");
+	}
+
+	@Override
+	public String toString() {
+		return "Utilization [start=" + getStart() + ", end=" + getEnd() + ", events=" + times.length + ", resources="
+				+ getResources() + "]";
+	}
+}
@@ -36,11 +36,14 @@ public class CSVParser {
 	}
 
 	public static Map<Integer, Plan> parse(String fname) throws IOException, ParseException {
-		// Create a new file reader and parse the CSV file
-		Reader in = new FileReader(fname);
-		Iterable<CSVRecord> records = CSVFormat.EXCEL.withFirstRecordAsHeader().withHeader(csvHeaders.class).parse(in);
-		// Parse the records and return a map containing the plans
-		return parseRecords(records);
+		// Create a new file reader and parse the CSV file. The reader is closed
+		// as soon as the records are parsed.
+		try (Reader in = new FileReader(fname)) {
+			Iterable<CSVRecord> records = CSVFormat.EXCEL.withFirstRecordAsHeader().withHeader(csvHeaders.class)
+					.parse(in);
+			// Parse the records and return a map containing the plans
+			return parseRecords(records);
+		}
 	}
 
 	private static Map<Integer, Plan> parseRecords(Iterable<CSVRecord> records) throws ParseException {
@@ -111,19 +114,60 @@ public class CSVParser {
 		return new ArrayList<>();
 	}
 
-	public static void serialize(final List<Plan> plans, String fname) throws IOException {
-		final FileWriter fout = new FileWriter(fname);
-		final CSVPrinter printer = CSVFormat.EXCEL.withHeader(csvHeaders.class).print(fout);
-
-		for (Plan p : plans) {
-			for (Task t : p.getTasks()) {
-				printer.printRecord(t.getID(), t.getPlanID(), p.getPriority(), t.getResourceID(), t.getReleaseTime(),
-						t.getProcessingTime());
+	/**
+	 * Write the given plans to a CSV file, using the same format read by
+	 * {@link #parse(String)}.
+	 * 
+	 * @param plans
+	 * @param fname
+	 * @throws IOException
+	 */
+	public static void serialize(final Collection<Plan> plans, String fname) throws IOException {
+		try (CSVPrinter printer = getPrinter(new FileWriter(fname))) {
+			for (Plan p : plans) {
+				print(printer, p);
 			}
+		}
+	}
+
+	/**
+	 * Get a printer that writes records in the format read by this parser. The
+	 * header is written immediately.
+	 * 
+	 * @param out
+	 * @return
+	 * @throws IOException
+	 */
+	public static CSVPrinter getPrinter(Appendable out) throws IOException {
+		return CSVFormat.EXCEL.withHeader(csvHeaders.class).print(out);
+	}
 
+	/**
+	 * Print one record for each task of the given plan.
+	 * 
+	 * @param printer a printer obtained from {@link #getPrinter(Appendable)}
+	 * @param p
+	 * @throws IOException
+	 */
+	public static void print(CSVPrinter printer, Plan p) throws IOException {
+		String successors = formatList(p.getSuccessors());
+		String syncTasks = formatList(p.getSyncTasks().stream().map(Task::getID).collect(Collectors.toList()));
+
+		for (Task t : p.getTasks()) {
+			printer.printRecord(t.getID(), t.getPlanID(), p.getName(), p.getPriority(), t.getResourceID(),
+					t.getResourceUsage(), t.getReleaseTime(), t.getDueDate(), t.getProcessingTime(), successors,
+					syncTasks, formatList(t.getPredecessors()));
 		}
-		fout.flush();
-		fout.close();
-		printer.close();
+	}
+
+	/**
+	 * Format a list of numbers separated by ';'. This is the inverse of
+	 * {@link #parseList(String)}
+	 * 
+	 * @param values
+	 * @return
+	 */
+	private static String formatList(List<Integer> values) {
+		return values.stream().map(x -> Integer.toString(x)).collect(Collectors.joining(";"));
 	}
 }
@@ -0,0 +1,406 @@
+package org.lip6.scheduler.utils;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.csv.CSVPrinter;
+import org.lip6.scheduler.Plan;
+import org.lip6.scheduler.PlanImpl;
+import org.lip6.scheduler.Task;
+import org.lip6.scheduler.TaskFactory;
+
+/**
+ * Generator of synthetic instances of the scheduling problem, used for scale
+ * testing.<br/>
+ * <br/>
+ * The generation is reproducible: two generators having the same seed and the
+ * same parameters produce exactly the same plans. Each plan is generated
+ * independently from the others (its random source depends only on the seed
+ * and on its ID), so that large instances can be streamed to a CSV file, one
+ * plan at time, without building the whole instance in memory.<br/>
+ * <br/>
+ * Example of usage:
+ *
+ * <pre>
+ * {@code
+ * InstanceGenerator g = InstanceGenerator.get(42);
+ * g.setNumberOfPlans(100000);
+ * g.setPriorityDistribution(PriorityDistribution.SKEWED);
+ * g.writeCSV("/tmp/plans.csv");
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:davide-andrea.guastella@lip6.fr">Davide Andrea
+ *         Guastella</a>
+ */
+public class InstanceGenerator {
+
+	/**
+	 * How the priority values are assigned to the plans
+	 */
+	public enum PriorityDistribution {
+		/**
+		 * Uniform in [0, maxPriority]
+		 */
+		UNIFORM,
+		/**
+		 * Geometric: most of the plans have a low priority, few plans have a
+		 * high priority.
+		 */
+		SKEWED,
+		/**
+		 * All the plans have the same priority value (maxPriority). This is the
+		 * worst case for the scheduling of plans having the same priority.
+		 */
+		CONSTANT,
+		/**
+		 * Each plan has its own priority value, decreasing with the plan ID.
+		 */
+		DISTINCT
+	}
+
+	private final long seed;
+	private int numberOfPlans;
+	private int tasksPerPlan;
+	private int numberOfResources;
+	/**
+	 * The number of groups of plans that share no resource and no precedence
+	 */
+	private int components;
+	private int maxProcessingTime;
+	/**
+	 * Probability that a task precedes another task of the same plan
+	 */
+	private double precedenceDensity;
+	/**
+	 * Probability that a plan precedes one of the plans that follow it
+	 */
+	private double planPrecedenceDensity;
+	/**
+	 * Probability that a task is a synchronized task
+	 */
+	private double syncTaskRatio;
+	private PriorityDistribution priorityDistribution;
+	private int maxPriority;
+	/**
+	 * Ratio between the work of a plan and the length of its [release time, due
+	 * date] window. 1 means that the window fits exactly the work of the plan.
+	 */
+	private double tightness;
+	private int wStart;
+	/**
+	 * The final time of the temporal window. If 0, it is calculated according to
+	 * the size of the instance.
+	 */
+	private int wEnd;
+
+	private InstanceGenerator(long seed) {
+		this.seed = seed;
+		numberOfPlans = 10;
+		tasksPerPlan = 4;
+		numberOfResources = 2;
+		components = 1;
+		maxProcessingTime = 5;
+		precedenceDensity = 0.3;
+		planPrecedenceDensity = 0;
+		syncTaskRatio = 0;
+		priorityDistribution = PriorityDistribution.UNIFORM;
+		maxPriority = 10;
+		tightness = 0.5;
+		wStart = 1;
+		wEnd = 0;
+	}
+
+	/**
+	 * Static factory method for InstanceGenerator.
+	 *
+	 * @param seed the seed of the random source
+	 * @return
+	 */
+	public static InstanceGenerator get(long seed) {
+		return new InstanceGenerator(seed);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getNumberOfPlans() {
+		return numberOfPlans;
+	}
+
+	public void setNumberOfPlans(int numberOfPlans) {
+		this.numberOfPlans = Utils.requireValidBounds(numberOfPlans, 1, Integer.MAX_VALUE,
+				"Number of plans must be a positive integer value.");
+	}
+
+	public int getTasksPerPlan() {
+		return tasksPerPlan;
+	}
+
+	public void setTasksPerPlan(int tasksPerPlan) {
+		this.tasksPerPlan = Utils.requireValidBounds(tasksPerPlan, 1, Integer.MAX_VALUE,
+				"Number of tasks per plan must be a positive integer value.");
+	}
+
+	public int getNumberOfResources() {
+		return numberOfResources;
+	}
+
+	public void setNumberOfResources(int numberOfResources) {
+		this.numberOfResources = Utils.requireValidBounds(numberOfResources, 1, Integer.MAX_VALUE,
+				"Number of resources must be a positive integer value.");
+	}
+
+	public int getComponents() {
+		return components;
+	}
+
+	/**
+	 * Split the plans into the given number of independent groups. The plan
+	 * having ID <i>i</i> belongs to the group <i>(i-1) mod components</i>: it
+	 * uses only the resources of its group (each group has
+	 * {@link #getNumberOfResources()} resources), and precedes only plans of its
+	 * group.
+	 *
+	 * @param components
+	 */
+	public void setComponents(int components) {
+		this.components = Utils.requireValidBounds(components, 1, Integer.MAX_VALUE,
+				"Number of components must be a positive integer value.");
+	}
+
+	public int getMaxProcessingTime() {
+		return maxProcessingTime;
+	}
+
+	public void setMaxProcessingTime(int maxProcessingTime) {
+		this.maxProcessingTime = Utils.requireValidBounds(maxProcessingTime, 1, Integer.MAX_VALUE,
+				"Maximum processing time must be a positive integer value.");
+	}
+
+	public double getPrecedenceDensity() {
+		return precedenceDensity;
+	}
+
+	public void setPrecedenceDensity(double precedenceDensity) {
+		this.precedenceDensity = requireProbability(precedenceDensity, "Precedence density");
+	}
+
+	public double getPlanPrecedenceDensity() {
+		return planPrecedenceDensity;
+	}
+
+	public void setPlanPrecedenceDensity(double planPrecedenceDensity) {
+		this.planPrecedenceDensity = requireProbability(planPrecedenceDensity, "Plan precedence density");
+	}
+
+	public double getSyncTaskRatio() {
+		return syncTaskRatio;
+	}
+
+	public void setSyncTaskRatio(double syncTaskRatio) {
+		this.syncTaskRatio = requireProbability(syncTaskRatio, "Sync task ratio");
+	}
+
+	public PriorityDistribution getPriorityDistribution() {
+		return priorityDistribution;
+	}
+
+	public void setPriorityDistribution(PriorityDistribution priorityDistribution) {
+		this.priorityDistribution = priorityDistribution;
+	}
+
+	public int getMaxPriority() {
+		return maxPriority;
+	}
+
+	public void setMaxPriority(int maxPriority) {
+		this.maxPriority = Utils.requireValidBounds(maxPriority, 0, Integer.MAX_VALUE,
+				"Maximum priority must be >= 0.");
+	}
+
+	public double getTightness() {
+		return tightness;
+	}
+
+	public void setTightness(double tightness) {
+		if (tightness <= 0 || tightness > 1) {
+			throw new IllegalArgumentException("Tightness must be in (0,1].");
+		}
+		this.tightness = tightness;
+	}
+
+	/**
+	 * Set the temporal window in which the release times and due dates of the
+	 * tasks are generated.
+	 *
+	 * @param wStart
+	 * @param wEnd
+	 */
+	public void setTemporalWindow(int wStart, int wEnd) {
+		Utils.requireValidBounds(wStart, 1, Integer.MAX_VALUE, "Invalid value of WStart");
+		Utils.requireValidBounds(wEnd, wStart + 1, Integer.MAX_VALUE, "Invalid value of WEnd");
+		this.wStart = wStart;
+		this.wEnd = wEnd;
+	}
+
+	/**
+	 * Get W<sub>s</sub>
+	 *
+	 * @return
+	 */
+	public int getwStart() {
+		return wStart;
+	}
+
+	/**
+	 * Get W<sub>e</sub>. If no temporal window has been set, it is large enough
+	 * to let all the tasks be executed on the available resources.
+	 *
+	 * @return
+	 */
+	public int getwEnd() {
+		if (wEnd > 0) {
+			return wEnd;
+		}
+		long work = (long) numberOfPlans * tasksPerPlan * (maxProcessingTime + 1) / 2;
+		return (int) Math.min(Integer.MAX_VALUE, wStart + maxProcessingTime * tasksPerPlan
+				+ Math.max(1, work / ((long) numberOfResources * components)));
+	}
+
+	/**
+	 * Generate the whole instance in memory.
+	 *
+	 * @return the set of generated plans
+	 */
+	public Set<Plan> generate() {
+		Set<Plan> plans = new HashSet<>();
+		for (int planID = 1; planID <= numberOfPlans; planID++) {
+			plans.add(generatePlan(planID));
+		}
+		return plans;
+	}
+
+	/**
+	 * Generate the instance and write it to a CSV file that can be read by
+	 * {@link CSVParser}. The plans are written as soon as they are generated, so
+	 * the memory used does not depend on the number of plans.
+	 *
+	 * @param fname
+	 * @throws IOException
+	 */
+	public void writeCSV(String fname) throws IOException {
+		try (CSVPrinter printer = CSVParser.getPrinter(new FileWriter(fname))) {
+			for (int planID = 1; planID <= numberOfPlans; planID++) {
+				CSVParser.print(printer, generatePlan(planID));
+			}
+		}
+	}
+
+	/**
+	 * Generate the plan having the given ID. The result depends only on the seed,
+	 * on the parameters of this generator and on the plan ID.
+	 *
+	 * @param planID a value in [1, numberOfPlans]
+	 * @return
+	 */
+	public Plan generatePlan(int planID) {
+		Utils.requireValidBounds(planID, 1, numberOfPlans, "Invalid plan ID " + planID);
+		Random rnd = new Random(seed * 1_000_003L + planID);
+
+		// Successors of the plan, taken between the plans of its group that
+		// follow it
+		int group = (planID - 1) % components;
+		List<Integer> successors = new ArrayList<>();
+		for (int next = planID + components; next <= Math.min(numberOfPlans,
+				planID + 10L * components); next += components) {
+			if (rnd.nextDouble() < planPrecedenceDensity) {
+				successors.add(next);
+			}
+		}
+
+		int priority = nextPriority(planID, rnd);
+		String planName = "P" + planID;
+
+		// Processing times of the tasks, used to calculate the window of the plan
+		int[] processingTimes = new int[tasksPerPlan];
+		int work = 0;
+		for (int i = 0; i < tasksPerPlan; i++) {
+			processingTimes[i] = 1 + rnd.nextInt(maxProcessingTime);
+			work += processingTimes[i];
+		}
+
+		// The window [releaseTime, dueDate] of the plan is larger than its work
+		// as much as the tightness is low
+		int We = getwEnd();
+		int length = (int) Math.min(We - wStart, Math.ceil(work / tightness));
+		int releaseTime = wStart + rnd.nextInt(Math.max(1, We - wStart - length + 1));
+		int dueDate = Math.max(releaseTime + 1, Math.min(We, releaseTime + length));
+
+		// Decide which tasks are synchronized. A synchronized task has no
+		// predecessors. At least two tasks are needed to be synchronized.
+		List<Integer> syncTasks = new ArrayList<>();
+		for (int taskID = 1; taskID <= tasksPerPlan; taskID++) {
+			if (rnd.nextDouble() < syncTaskRatio) {
+				syncTasks.add(taskID);
+			}
+		}
+		if (syncTasks.size() < 2) {
+			syncTasks.clear();
+		}
+
+		PlanImpl p = PlanImpl.get(planID, planName, priority, successors, syncTasks);
+		List<Task> tasks = new ArrayList<>();
+		for (int taskID = 1; taskID <= tasksPerPlan; taskID++) {
+			List<Integer> predecessors = new ArrayList<>();
+			if (!syncTasks.contains(taskID)) {
+				for (int pred = 1; pred < taskID; pred++) {
+					if (rnd.nextDouble() < precedenceDensity) {
+						predecessors.add(pred);
+					}
+				}
+			}
+			int resourceID = group * numberOfResources + 1 + rnd.nextInt(numberOfResources);
+			Task t = TaskFactory.getTask(taskID, planID, planName, resourceID, 1,
+					releaseTime, dueDate, processingTimes[taskID - 1], priority, predecessors);
+
+			// Keep the successors of each task, as CSVParser does
+			predecessors.forEach(pred -> tasks.get(pred - 1).addSuccessor(t.getID()));
+			tasks.add(t);
+		}
+		tasks.forEach(p::addTask);
+
+		return p;
+	}
+
+	private int nextPriority(int planID, Random rnd) {
+		switch (priorityDistribution) {
+		case CONSTANT:
+			return maxPriority;
+		case DISTINCT:
+			return numberOfPlans - planID;
+		case SKEWED:
+			int priority = 0;
+			while (priority < maxPriority && rnd.nextBoolean()) {
+				priority++;
+			}
+			return priority;
+		case UNIFORM:
+		default:
+			return rnd.nextInt(maxPriority + 1);
+		}
+	}
+
+	private static double requireProbability(double value, String name) {
+		if (value < 0 || value > 1) {
+			throw new IllegalArgumentException(name + " must be in [0,1].");
+		}
+		return value;
+	}
+}